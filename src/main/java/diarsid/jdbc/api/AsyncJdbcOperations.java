@@ -0,0 +1,79 @@
+package diarsid.jdbc.api;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+import diarsid.jdbc.api.sqltable.rows.RowOperation;
+
+/**
+ * Non-blocking facade of Jdbc, see Jdbc.async(). Operations are executed by bounded
+ * executor of Jdbc, configured with JdbcOption.ASYNC_THREADS and ASYNC_QUEUE_CAPACITY.
+ * Every operation uses its own connection, doInTransactionAsync() - its own transaction.
+ * If executor queue is full, returned future is completed exceptionally at once.
+ * Cancellation of returned future cancels statement that is executing at the moment, if
+ * driver supports it, and interrupts running operation, which stops rows iteration. For
+ * doInTransactionAsync() the transaction is cancelled, see JdbcOperationsTransactional.cancellation().
+ */
+public interface AsyncJdbcOperations {
+
+    interface Metrics {
+
+        int threads();
+
+        int activeOperations();
+
+        int queuedOperations();
+
+        int maxQueuedOperations();
+
+        int queueCapacity();
+
+        long completedOperations();
+
+        long rejectedOperations();
+    }
+
+    CompletableFuture<Void> doQuery(
+            RowOperation operation, String sql, Object... params);
+
+    CompletableFuture<Void> doQuery(
+            RowOperation operation, String sql, List params);
+
+    <T> CompletableFuture<List<T>> doQueryAndConvert(
+            RowGetter<T> conversion, String sql, Object... params);
+
+    <T> CompletableFuture<List<T>> doQueryAndConvert(
+            RowGetter<T> conversion, String sql, List params);
+
+    <T> CompletableFuture<Optional<T>> doQueryAndConvertFirstRow(
+            RowGetter<T> conversion, String sql, Object... params);
+
+    <T> CompletableFuture<Optional<T>> doQueryAndConvertFirstRow(
+            RowGetter<T> conversion, String sql, List params);
+
+    CompletableFuture<Integer> countQueryResults(
+            String sql, Object... params);
+
+    CompletableFuture<Integer> countQueryResults(
+            String sql, List params);
+
+    CompletableFuture<Integer> doUpdate(
+            String updateSql, Object... params);
+
+    CompletableFuture<Integer> doUpdate(
+            String updateSql, List params);
+
+    CompletableFuture<int[]> doBatchUpdate(
+            String updateSql, List<List> batchParams);
+
+    <T> CompletableFuture<T> doInTransactionAsync(
+            Function<ThreadBoundJdbcTransaction, T> transactionalFunction);
+
+    <T> CompletableFuture<T> doInTransactionAsync(
+            TransactionOptions options, Function<ThreadBoundJdbcTransaction, T> transactionalFunction);
+
+    Metrics metrics();
+}
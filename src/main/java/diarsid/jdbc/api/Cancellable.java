@@ -0,0 +1,15 @@
+package diarsid.jdbc.api;
+
+/**
+ * Handle that is able to stop running database work from any thread. Cancellation
+ * cancels the statement that is executing at the moment, if driver supports it, and
+ * stops rows iteration before the next row, so that database resources are released
+ * immediately. Work that has been cancelled fails with OperationCancelledException,
+ * possibly wrapped into JdbcException.
+ */
+public interface Cancellable {
+
+    void cancel();
+
+    boolean isCancelled();
+}
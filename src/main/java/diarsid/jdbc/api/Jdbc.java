@@ -1,9 +1,14 @@
 package diarsid.jdbc.api;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+import diarsid.jdbc.api.sqltable.rows.RowOperation;
 import diarsid.jdbc.impl.JdbcBuilder;
 import diarsid.support.functional.ThrowingConsumer;
 import diarsid.support.functional.ThrowingFunction;
@@ -26,20 +31,58 @@ public interface Jdbc extends JdbcOperations, AutoCloseable {
 
     JdbcTransaction createTransaction();
 
+    JdbcTransaction createTransaction(TransactionOptions options);
+
     void doInTransaction(Consumer<ThreadBoundJdbcTransaction> transactionalOperation);
 
+    void doInTransaction(TransactionOptions options, Consumer<ThreadBoundJdbcTransaction> transactionalOperation);
+
     <T> T doInTransaction(Function<ThreadBoundJdbcTransaction, T> transactionalFunction);
 
+    <T> T doInTransaction(TransactionOptions options, Function<ThreadBoundJdbcTransaction, T> transactionalFunction);
+
     void doInTransactionThrowing(ThrowingConsumer<ThreadBoundJdbcTransaction> transactionalOperation) throws Throwable;
 
     <T> T doInTransactionThrowing(ThrowingFunction<ThreadBoundJdbcTransaction, T> transactionalFunction) throws Throwable;
 
     <P> P createTransactionalProxyFor(Class<P> type, P p, WhenNoTransactionThen then);
 
+    <P> P createTransactionalProxyFor(Class<P> type, P p, TransactionOptions options, WhenNoTransactionThen then);
+
     <P> P createTransactionalProxyFor(Class<P> type, P p, TransactionAware aware, WhenNoTransactionThen then);
 
     JdbcTransactionThreadBinding threadBinding();
 
+    /**
+     * @return snapshots of transactions which connections are not closed yet, the oldest come first
+     */
+    List<OpenTransactionInfo> openTransactions();
+
+    AsyncJdbcOperations async();
+
+    /**
+     * Every subscriber gets rows of separate query execution, with its own connection.
+     * Rows are fetched from cursor and converted only after subscriber has requested them.
+     * Connection is closed when all rows are given, on failure or on subscription cancellation.
+     */
+    <T> Flow.Publisher<T> doQueryAndPublish(RowGetter<T> conversion, String sql, Object... params);
+
+    <T> Flow.Publisher<T> doQueryAndPublish(RowGetter<T> conversion, String sql, List params);
+
+    /**
+     * Reads whole table by key ranges concurrently, every range with its own connection.
+     * Ranges are split between MIN and MAX of integer key column, rows with NULL key are
+     * not read. Operation is called concurrently by several threads and must be thread-safe.
+     */
+    void doQueryPartitioned(RowOperation operation, String table, String keyColumn, int parallelism);
+
+    /**
+     * Reads whole table by key ranges concurrently like doQueryPartitioned(), converted rows
+     * of all ranges are merged into one stream in no particular order. Partially consumed
+     * stream must be closed.
+     */
+    <T> Stream<T> doQueryPartitionedAndStream(RowGetter<T> conversion, String table, String keyColumn, int parallelism);
+
     void change(JdbcOption option, Object value);
 
 //    void executeScript(Path file);
@@ -5,8 +5,12 @@ import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
+import diarsid.jdbc.api.sqltable.rows.RowBlockOperation;
 import diarsid.jdbc.api.sqltable.rows.RowGetter;
 import diarsid.jdbc.api.sqltable.rows.RowOperation;
+import diarsid.jdbc.impl.KeysetPages;
+
+import static java.util.Arrays.asList;
 
 public interface JdbcOperations {
 
@@ -43,6 +47,48 @@ public interface JdbcOperations {
     void doQuery(
             RowOperation operation, String sql, Object... params);
 
+    /*
+     * Rows are fetched by separate reader thread, which goes at most depth rows ahead
+     * of processing, so that fetching and processing of rows overlap. Operation gets
+     * detached copies of rows. Transaction cannot be used by operation until query is done.
+     */
+    void doQueryPipelined(
+            RowOperation operation, int depth, String sql, List params);
+
+    void doQueryPipelined(
+            RowOperation operation, int depth, String sql, Object... params);
+
+    /*
+     * Rows are copied by calling thread and processed by up to parallelism threads
+     * of ForkJoinPool in no particular order, so operation must be thread-safe.
+     * Parallelism greater than number of available processors is reduced to it.
+     * Transaction cannot be used by operation until query is done.
+     */
+    void doQueryParallel(
+            RowOperation operation, int parallelism, String sql, List params);
+
+    void doQueryParallel(
+            RowOperation operation, int parallelism, String sql, Object... params);
+
+    /*
+     * Rows are converted in parallel like in doQueryParallel, results keep order of rows.
+     * Parallelism greater than number of available processors is reduced to it.
+     */
+    <T> List<T> doQueryParallelAndConvert(
+            RowGetter<T> conversion, int parallelism, String sql, List params);
+
+    <T> List<T> doQueryParallelAndConvert(
+            RowGetter<T> conversion, int parallelism, String sql, Object... params);
+
+    /*
+     * Rows are given to operation in blocks of up to blockSize rows stored by columns, see RowBlock.
+     */
+    void doQueryInBlocks(
+            RowBlockOperation operation, int blockSize, String sql, List params);
+
+    void doQueryInBlocks(
+            RowBlockOperation operation, int blockSize, String sql, Object... params);
+
     void doQueryAndProcessFirstRow(
             RowOperation operation, String sql);
 
@@ -61,6 +107,25 @@ public interface JdbcOperations {
     <T> Stream<T> doQueryAndStream(
             RowGetter<T> conversion, String sql, Object... params);
 
+    /*
+     * Rows are read by pages of up to pageSize rows ordered by keyset. Every page is a separate
+     * short query that continues after the key of the last row of previous page instead of OFFSET,
+     * so that every next page is as fast as the first one. Given query is used as a subquery,
+     * so it must not have ORDER BY and LIMIT. Next page is read when it is taken from stream.
+     * Order of keyset applies to all key columns, mixed directions are not supported. Key columns
+     * must not be NULL: if key of the last row of a full page has NULL, reading of the next page
+     * throws JdbcException.
+     */
+    default <T> Stream<List<T>> doQueryByPages(
+            RowGetter<T> conversion, Keyset keyset, int pageSize, String sql, List params) {
+        return new KeysetPages<>(this, conversion, keyset, pageSize, sql, params).stream();
+    }
+
+    default <T> Stream<List<T>> doQueryByPages(
+            RowGetter<T> conversion, Keyset keyset, int pageSize, String sql, Object... params) {
+        return new KeysetPages<>(this, conversion, keyset, pageSize, sql, asList(params)).stream();
+    }
+
     <T> Optional<T> doQueryAndConvertFirstRow(
             RowGetter<T> conversion, String sql);
 
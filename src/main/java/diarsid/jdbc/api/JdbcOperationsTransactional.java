@@ -1,6 +1,7 @@
 package diarsid.jdbc.api;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public interface JdbcOperationsTransactional extends JdbcOperations {
@@ -12,4 +13,27 @@ public interface JdbcOperationsTransactional extends JdbcOperations {
     SqlHistory sqlHistory();
 
     JdbcTransaction.State state();
+
+    /**
+     * @return handle that cancels this transaction from any thread
+     */
+    Cancellable cancellation();
+
+    /**
+     * Queues update which result is not needed instead of executing it immediately.
+     * Consecutive deferred updates with the same SQL are executed as one batch.
+     * Queue is flushed in order before any other operation of this transaction,
+     * including queries, and before commit. Rollback discards queued updates.
+     * Errors of deferred updates are thrown by the operation that has caused flush.
+     */
+    void doUpdateDeferred(String updateSql);
+
+    void doUpdateDeferred(String updateSql, Object... params);
+
+    void doUpdateDeferred(String updateSql, List params);
+
+    /**
+     * Executes all queued deferred updates right now.
+     */
+    void flushDeferred();
 }
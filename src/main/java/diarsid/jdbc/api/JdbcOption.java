@@ -1,5 +1,6 @@
 package diarsid.jdbc.api;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -27,7 +28,45 @@ public enum JdbcOption implements CommonEnum<JdbcOption> {
     SQL_HISTORY_PARAMS_REPLACE(
             true,
             boolean.class,
-            Boolean.class);
+            Boolean.class),
+
+    SCATTER_GATHER_FETCH_SIZE(
+            false,
+            int.class,
+            Integer.class),
+
+    NESTED_TRANSACTIONS_AS_SAVEPOINTS(
+            true,
+            boolean.class,
+            Boolean.class),
+
+    SKIP_COMMIT_WITHOUT_WRITES(
+            true,
+            boolean.class,
+            Boolean.class),
+
+    /* watchdog is enabled if specified */
+    TRANSACTION_WATCHDOG_THRESHOLD(
+            false,
+            Duration.class),
+
+    /* if false, watchdog only logs transactions older than threshold */
+    TRANSACTION_WATCHDOG_ABORTS(
+            false,
+            boolean.class,
+            Boolean.class),
+
+    /* threads executing Jdbc.async() operations, available processors by default */
+    ASYNC_THREADS(
+            false,
+            int.class,
+            Integer.class),
+
+    /* operations waiting for a free thread, exceeding ones are rejected */
+    ASYNC_QUEUE_CAPACITY(
+            false,
+            int.class,
+            Integer.class);
 
     private final boolean changeable;
     private final Class[] classes;
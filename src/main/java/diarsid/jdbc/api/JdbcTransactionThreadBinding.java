@@ -6,6 +6,12 @@ public interface JdbcTransactionThreadBinding {
 
     boolean isBound();
 
+    /**
+     * Captures transaction bound to the current thread, so that it can be used by
+     * tasks running on other threads.
+     */
+    TransactionContext captureCurrent();
+
     default boolean isNotBound() {
         return ! this.isBound();
     }
@@ -0,0 +1,55 @@
+package diarsid.jdbc.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import diarsid.support.objects.CommonEnum;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable description of key columns used for keyset pagination, see
+ * JdbcOperations.doQueryByPages(). Key columns are labels of query result
+ * columns, rows are ordered by all of them in the same direction, so that
+ * together they must identify rows uniquely. Order given to ascending() or
+ * descending() applies to every key column, mixed directions are not
+ * supported. Key columns must not have NULL values.
+ */
+public final class Keyset {
+
+    public enum Order implements CommonEnum<Order> {
+        ASCENDING,
+        DESCENDING
+    }
+
+    private final List<String> columns;
+    private final Order order;
+
+    private Keyset(Order order, String column, String... columns) {
+        List<String> keyColumns = new ArrayList<>();
+        keyColumns.add(requireNonNull(column));
+        for ( String otherColumn : columns ) {
+            keyColumns.add(requireNonNull(otherColumn));
+        }
+
+        this.columns = unmodifiableList(keyColumns);
+        this.order = order;
+    }
+
+    public static Keyset ascending(String column, String... columns) {
+        return new Keyset(Order.ASCENDING, column, columns);
+    }
+
+    public static Keyset descending(String column, String... columns) {
+        return new Keyset(Order.DESCENDING, column, columns);
+    }
+
+    public List<String> columns() {
+        return this.columns;
+    }
+
+    public Order order() {
+        return this.order;
+    }
+}
@@ -0,0 +1,72 @@
+package diarsid.jdbc.api;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of a transaction that was open at the moment of Jdbc.openTransactions() call.
+ */
+public final class OpenTransactionInfo {
+
+    private final UUID uuid;
+    private final LocalDateTime created;
+    private final String ownerThread;
+    private final String currentSql;
+    private final Duration elapsed;
+    private final JdbcTransaction.State state;
+
+    public OpenTransactionInfo(
+            UUID uuid,
+            LocalDateTime created,
+            String ownerThread,
+            String currentSql,
+            Duration elapsed,
+            JdbcTransaction.State state) {
+        this.uuid = uuid;
+        this.created = created;
+        this.ownerThread = ownerThread;
+        this.currentSql = currentSql;
+        this.elapsed = elapsed;
+        this.state = state;
+    }
+
+    public UUID uuid() {
+        return this.uuid;
+    }
+
+    public LocalDateTime created() {
+        return this.created;
+    }
+
+    /* name of the thread that works with transaction at the moment */
+    public String ownerThread() {
+        return this.ownerThread;
+    }
+
+    /* the most recent SQL statement executed by transaction, if any */
+    public Optional<String> currentSql() {
+        return Optional.ofNullable(this.currentSql);
+    }
+
+    public Duration elapsed() {
+        return this.elapsed;
+    }
+
+    public JdbcTransaction.State state() {
+        return this.state;
+    }
+
+    @Override
+    public String toString() {
+        return "OpenTransactionInfo{" +
+                "uuid=" + this.uuid +
+                ", created=" + this.created +
+                ", ownerThread='" + this.ownerThread + '\'' +
+                ", elapsed=" + this.elapsed +
+                ", state=" + this.state +
+                ", currentSql='" + this.currentSql + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,138 @@
+package diarsid.jdbc.api;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+
+import static java.lang.Math.min;
+import static java.util.Objects.nonNull;
+
+/**
+ * Immutable policy of transaction retries. Transaction is retried from the
+ * very beginning on a fresh connection if it has failed with a SQLException
+ * which SQLState is one of retryable states, e.g. on deadlock or serialization
+ * failure. Pause before every next attempt is randomly chosen between zero and
+ * exponentially growing backoff limited by max backoff, so that concurrent
+ * transactions that have failed together do not retry together.
+ */
+public final class RetryPolicy {
+
+    /* 40001 - serialization failure, 40P01 - PostgreSQL deadlock detected */
+    public static final Set<String> DEADLOCK_OR_SERIALIZATION_FAILURE_STATES = Set.of("40001", "40P01");
+
+    public static final RetryPolicy NO_RETRY = new RetryPolicy(
+            1, Duration.ZERO, Duration.ZERO, Set.of());
+
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final Set<String> retryableSqlStates;
+
+    private RetryPolicy(int maxAttempts, Duration backoff, Duration maxBackoff, Set<String> retryableSqlStates) {
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.retryableSqlStates = retryableSqlStates;
+    }
+
+    public static RetryPolicy onDeadlockOrSerializationFailure(int maxAttempts) {
+        return onSqlStates(
+                maxAttempts,
+                Duration.ofMillis(20),
+                Duration.ofSeconds(1),
+                DEADLOCK_OR_SERIALIZATION_FAILURE_STATES);
+    }
+
+    public static RetryPolicy onSqlStates(
+            int maxAttempts, Duration backoff, Duration maxBackoff, Set<String> retryableSqlStates) {
+        if ( maxAttempts < 1 ) {
+            throw new JdbcException("Max attempts must be positive!");
+        }
+
+        if ( backoff.isNegative() || maxBackoff.isNegative() ) {
+            throw new JdbcException("Backoff must not be negative!");
+        }
+
+        return new RetryPolicy(maxAttempts, backoff, maxBackoff, Set.copyOf(retryableSqlStates));
+    }
+
+    public int maxAttempts() {
+        return this.maxAttempts;
+    }
+
+    public boolean isRetrying() {
+        return this.maxAttempts > 1;
+    }
+
+    public boolean allowsRetryAfter(int attempt, Throwable failure) {
+        return attempt < this.maxAttempts && this.isRetryable(failure);
+    }
+
+    public boolean isRetryable(Throwable failure) {
+        Throwable cause = failure;
+        int depth = 0;
+
+        while ( nonNull(cause) && depth < 16 ) {
+            if ( cause instanceof SQLException ) {
+                SQLException sqlException = (SQLException) cause;
+                if ( this.isRetryable(sqlException) ) {
+                    return true;
+                }
+            }
+            cause = cause.getCause();
+            depth++;
+        }
+
+        return false;
+    }
+
+    private boolean isRetryable(SQLException sqlException) {
+        SQLException next = sqlException;
+        while ( nonNull(next) ) {
+            String sqlState = next.getSQLState();
+            if ( nonNull(sqlState) && this.retryableSqlStates.contains(sqlState) ) {
+                return true;
+            }
+            next = next.getNextException();
+        }
+
+        return false;
+    }
+
+    /**
+     * @param attempt number of failed attempt, starting from 1
+     * @return randomized pause in millis before the next attempt
+     */
+    public long backoffMillisAfter(int attempt) {
+        long backoffMillis = this.backoff.toMillis();
+        long maxBackoffMillis = this.maxBackoff.toMillis();
+
+        if ( backoffMillis == 0 || maxBackoffMillis == 0 ) {
+            return 0;
+        }
+
+        int shift = min(attempt - 1, 30);
+        long limit;
+        if ( backoffMillis > (maxBackoffMillis >> shift) ) {
+            limit = maxBackoffMillis;
+        }
+        else {
+            limit = min(maxBackoffMillis, backoffMillis << shift);
+        }
+
+        return ThreadLocalRandom.current().nextLong(limit + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + this.maxAttempts +
+                ", backoff=" + this.backoff +
+                ", maxBackoff=" + this.maxBackoff +
+                ", retryableSqlStates=" + this.retryableSqlStates +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package diarsid.jdbc.api;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+import diarsid.jdbc.impl.ShardedJdbcImpl;
+
+import static java.lang.Math.floorMod;
+
+public interface ShardedJdbc<K> extends AutoCloseable {
+
+    @FunctionalInterface
+    interface Sharding<K> {
+
+        int shardOf(K key, int shardsQty);
+
+        static <K> Sharding<K> byHashCode() {
+            return (key, shardsQty) -> floorMod(key.hashCode(), shardsQty);
+        }
+    }
+
+    static <K> ShardedJdbc<K> init(List<SqlConnectionsSource> sources, Sharding<K> sharding) {
+        return new ShardedJdbcImpl<>(sources, sharding, new HashMap<>());
+    }
+
+    static <K> ShardedJdbc<K> init(
+            List<SqlConnectionsSource> sources, Sharding<K> sharding, Map<JdbcOption, Object> options) {
+        return new ShardedJdbcImpl<>(sources, sharding, options);
+    }
+
+    int shardsQty();
+
+    Jdbc shard(int index);
+
+    Jdbc shardFor(K key);
+
+    default JdbcOperations operationsFor(K key) {
+        return this.shardFor(key);
+    }
+
+    JdbcTransaction createTransaction(K key);
+
+    JdbcTransaction createTransaction(K key, TransactionOptions options);
+
+    void doInTransaction(K key, Consumer<ThreadBoundJdbcTransaction> transactionalOperation);
+
+    void doInTransaction(
+            K key, TransactionOptions options, Consumer<ThreadBoundJdbcTransaction> transactionalOperation);
+
+    <T> T doInTransaction(K key, Function<ThreadBoundJdbcTransaction, T> transactionalFunction);
+
+    <T> T doInTransaction(
+            K key, TransactionOptions options, Function<ThreadBoundJdbcTransaction, T> transactionalFunction);
+
+    <P> P createTransactionalProxyFor(K key, Class<P> type, P p, Jdbc.WhenNoTransactionThen then);
+
+    /**
+     * Executes the same query on every shard concurrently and streams converted rows
+     * in the order they arrive from shards.
+     *
+     * Conversion is performed on shard reader threads, so it must not rely on the
+     * caller thread state. Every shard holds its connection until it is read to the
+     * end, thus returned Stream must be either consumed fully or closed.
+     */
+    <T> Stream<T> doQueryOnAllShardsAndStream(
+            RowGetter<T> conversion, String sql, Object... params);
+
+    <T> Stream<T> doQueryOnAllShardsAndStream(
+            RowGetter<T> conversion, String sql, List params);
+
+    /**
+     * Executes the same query on every shard concurrently and merges converted rows
+     * into one Stream ordered by given Comparator. Query on each shard must return
+     * rows in the same order, e.g. it must have appropriate ORDER BY.
+     *
+     * Limit is pushed down to every shard as max rows and merging stops as soon as
+     * limit is reached.
+     */
+    <T> Stream<T> doQueryOnAllShardsAndStreamMerged(
+            RowGetter<T> conversion, Comparator<? super T> order, long limit, String sql, Object... params);
+
+    <T> Stream<T> doQueryOnAllShardsAndStreamMerged(
+            RowGetter<T> conversion, Comparator<? super T> order, long limit, String sql, List params);
+
+    void change(JdbcOption option, Object value);
+
+    @Override
+    void close();
+}
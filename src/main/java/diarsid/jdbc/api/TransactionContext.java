@@ -0,0 +1,26 @@
+package diarsid.jdbc.api;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Transaction captured on its owning thread by JdbcTransactionThreadBinding.captureCurrent()
+ * in order to be used by tasks running on other threads, e.g. in executors.
+ * Task runs with captured transaction bound to its thread, so that it is visible through
+ * Jdbc.threadBinding() and transactional proxies. Only one thread works with transaction
+ * at a time: tasks wait for each other, while operations of the owning thread are
+ * forbidden until task is finished. Exception thrown by a task marks transaction as failed.
+ * Owning thread must not commit transaction until all tasks are finished.
+ */
+public interface TransactionContext {
+
+    void run(Runnable task);
+
+    <T> T get(Supplier<T> task);
+
+    default Runnable wrap(Runnable task) {
+        return () -> this.run(task);
+    }
+
+    <T> Callable<T> wrap(Callable<T> task);
+}
@@ -0,0 +1,213 @@
+package diarsid.jdbc.api;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.support.objects.CommonEnum;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable set of options applied to the connection of a single transaction.
+ * Every with-method returns a new instance, so instances can be freely shared
+ * as constants, e.g. TransactionOptions.DEFAULT.readOnly().
+ */
+public final class TransactionOptions {
+
+    public enum Isolation implements CommonEnum<Isolation> {
+
+        /* connection isolation level is not changed */
+        DEFAULT(-1),
+        READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED),
+        READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+        REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+        SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+        private final int jdbcLevel;
+
+        Isolation(int jdbcLevel) {
+            this.jdbcLevel = jdbcLevel;
+        }
+
+        public int jdbcLevel() {
+            return this.jdbcLevel;
+        }
+
+        public boolean isDefault() {
+            return this.equalTo(DEFAULT);
+        }
+
+        public boolean isNotDefault() {
+            return this.notEqualTo(DEFAULT);
+        }
+
+        public static Isolation ofJdbcLevel(int jdbcLevel) {
+            for ( Isolation isolation : values() ) {
+                if ( isolation.jdbcLevel == jdbcLevel ) {
+                    return isolation;
+                }
+            }
+
+            throw new JdbcException(format("Unknown JDBC isolation level: %s", jdbcLevel));
+        }
+    }
+
+    public enum MemoEviction implements CommonEnum<MemoEviction> {
+
+        /* query results are not memoized */
+        NO_MEMO,
+        /* any update evicts all memoized results */
+        BY_ANY_UPDATE,
+        /* update evicts results read from updated table, as far as tables are recognized in SQL */
+        BY_UPDATED_TABLE
+    }
+
+    public static final TransactionOptions DEFAULT = new TransactionOptions(
+            false, Isolation.DEFAULT, null, null, RetryPolicy.NO_RETRY, MemoEviction.NO_MEMO);
+
+    private final boolean readOnly;
+    private final Isolation isolation;
+    private final Duration timeout;
+    private final Instant deadline;
+    private final RetryPolicy retry;
+    private final MemoEviction memoEviction;
+
+    private TransactionOptions(
+            boolean readOnly,
+            Isolation isolation,
+            Duration timeout,
+            Instant deadline,
+            RetryPolicy retry,
+            MemoEviction memoEviction) {
+        this.readOnly = readOnly;
+        this.isolation = isolation;
+        this.timeout = timeout;
+        this.deadline = deadline;
+        this.retry = retry;
+        this.memoEviction = memoEviction;
+    }
+
+    public TransactionOptions readOnly() {
+        return new TransactionOptions(true, this.isolation, this.timeout, this.deadline, this.retry, this.memoEviction);
+    }
+
+    public TransactionOptions readWrite() {
+        return new TransactionOptions(false, this.isolation, this.timeout, this.deadline, this.retry, this.memoEviction);
+    }
+
+    public TransactionOptions withIsolation(Isolation isolation) {
+        requireNonNull(isolation);
+        return new TransactionOptions(this.readOnly, isolation, this.timeout, this.deadline, this.retry, this.memoEviction);
+    }
+
+    public TransactionOptions withTimeout(Duration timeout) {
+        if ( isNull(timeout) || timeout.isNegative() || timeout.isZero() ) {
+            throw new JdbcException("Transaction timeout must be positive!");
+        }
+        return new TransactionOptions(this.readOnly, this.isolation, timeout, this.deadline, this.retry, this.memoEviction);
+    }
+
+    public TransactionOptions withoutTimeout() {
+        return new TransactionOptions(this.readOnly, this.isolation, null, this.deadline, this.retry, this.memoEviction);
+    }
+
+    /**
+     * Sets absolute deadline, e.g. derived from request SLA. Transaction that has
+     * not finished before the deadline fails on its next operation, and every
+     * statement gets query timeout not greater than time remaining to the deadline.
+     * If timeout is set too, whichever ends earlier is used.
+     */
+    public TransactionOptions withDeadline(Instant deadline) {
+        requireNonNull(deadline);
+        return new TransactionOptions(this.readOnly, this.isolation, this.timeout, deadline, this.retry, this.memoEviction);
+    }
+
+    public TransactionOptions withoutDeadline() {
+        return new TransactionOptions(this.readOnly, this.isolation, this.timeout, null, this.retry, this.memoEviction);
+    }
+
+    public TransactionOptions withRetry(RetryPolicy retry) {
+        requireNonNull(retry);
+        return new TransactionOptions(this.readOnly, this.isolation, this.timeout, this.deadline, retry, this.memoEviction);
+    }
+
+    /**
+     * Enables memoization of doQueryAndConvertFirstRow results within the transaction.
+     * Repeated query with the same SQL, params and the same RowGetter instance returns
+     * previously converted result without database access. Any update in this transaction
+     * evicts all memoized results, as effects of update through triggers, cascades or
+     * views cannot be known.
+     * Memoized result is returned as the same instance every time, so RowGetter should
+     * produce immutable objects, or returned objects must not be modified.
+     */
+    public TransactionOptions withQueryMemo() {
+        return new TransactionOptions(
+                this.readOnly, this.isolation, this.timeout, this.deadline, this.retry, MemoEviction.BY_ANY_UPDATE);
+    }
+
+    /**
+     * Same as withQueryMemo(), but update evicts only results read from updated table,
+     * or all results if tables are not recognized in SQL. Only table names written plainly
+     * after FROM, JOIN, INSERT INTO, UPDATE, DELETE FROM or MERGE INTO are recognized, so
+     * this mode is correct only if transaction does not change data through triggers,
+     * cascades, views, procedures or CTE, and queries do not read tables in other ways.
+     */
+    public TransactionOptions withQueryMemoEvictedByTables() {
+        return new TransactionOptions(
+                this.readOnly, this.isolation, this.timeout, this.deadline, this.retry, MemoEviction.BY_UPDATED_TABLE);
+    }
+
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    public Isolation isolation() {
+        return this.isolation;
+    }
+
+    public Optional<Duration> timeout() {
+        return Optional.ofNullable(this.timeout);
+    }
+
+    public boolean hasTimeout() {
+        return nonNull(this.timeout);
+    }
+
+    public Optional<Instant> deadline() {
+        return Optional.ofNullable(this.deadline);
+    }
+
+    public boolean hasDeadline() {
+        return nonNull(this.deadline);
+    }
+
+    public RetryPolicy retry() {
+        return this.retry;
+    }
+
+    public boolean hasQueryMemo() {
+        return this.memoEviction.notEqualTo(MemoEviction.NO_MEMO);
+    }
+
+    public MemoEviction memoEviction() {
+        return this.memoEviction;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionOptions{" +
+                "readOnly=" + this.readOnly +
+                ", isolation=" + this.isolation +
+                ", timeout=" + this.timeout +
+                ", deadline=" + this.deadline +
+                ", retry=" + this.retry +
+                ", memoEviction=" + this.memoEviction +
+                '}';
+    }
+}
@@ -0,0 +1,51 @@
+package diarsid.jdbc.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import diarsid.support.objects.CommonEnum;
+
+/**
+ * Per-method transaction configuration for interface methods of proxies created by
+ * Jdbc.createTransactionalProxyFor(...). Annotation is read once per method, values
+ * that are left default are taken from the proxy, i.e. from its TransactionOptions
+ * and WhenNoTransactionThen. Options are applied only when a new transaction is
+ * opened - when method joins an existing transaction it works with that transaction
+ * as it is.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Transactional {
+
+    enum Propagation implements CommonEnum<Propagation> {
+
+        /* proxy WhenNoTransactionThen is used */
+        AS_PROXY,
+
+        JOIN_OR_OPEN_NEW,
+
+        JOIN_OR_THROW,
+
+        /* thread bound transaction, if any, is suspended until new transaction is closed */
+        OPEN_NEW,
+
+        /* method is invoked directly, without transaction binding and TransactionAware callbacks */
+        NO_TRANSACTION
+    }
+
+    Propagation propagation() default Propagation.AS_PROXY;
+
+    boolean readOnly() default false;
+
+    TransactionOptions.Isolation isolation() default TransactionOptions.Isolation.DEFAULT;
+
+    /* zero means timeout of proxy options */
+    long timeoutMillis() default 0;
+
+    /* attempts on deadlock or serialization failure, one or less means retry of proxy options */
+    int retryAttempts() default 1;
+}
@@ -0,0 +1,8 @@
+package diarsid.jdbc.api.exceptions;
+
+public class OperationCancelledException extends JdbcException {
+
+    public OperationCancelledException(String msg) {
+        super(msg);
+    }
+}
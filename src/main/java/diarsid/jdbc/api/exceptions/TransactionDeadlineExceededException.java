@@ -0,0 +1,8 @@
+package diarsid.jdbc.api.exceptions;
+
+public class TransactionDeadlineExceededException extends JdbcException {
+
+    public TransactionDeadlineExceededException(String msg) {
+        super(msg);
+    }
+}
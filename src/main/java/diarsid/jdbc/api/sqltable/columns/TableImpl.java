@@ -55,6 +55,16 @@ class TableImpl extends AbstractRowsCollector implements Table.Columns {
             return (byte[]) this.get(column);
         }
 
+        @Override
+        public diarsid.jdbc.api.sqltable.rows.Row snapshot() {
+            this.checkListIndexOnGet(this.rowIndex);
+            int columnsCount = this.table.columns.size();
+            Object[] values = this.table.objects
+                    .subList(this.listIndex, this.listIndex + columnsCount)
+                    .toArray();
+            return new TableRowSnapshot(this.table.columns, values);
+        }
+
         @Override
         public void index(int i) {
             this.rowIndex = this.table.checkRowIndex(i);
@@ -99,6 +109,44 @@ class TableImpl extends AbstractRowsCollector implements Table.Columns {
         }
     }
 
+    private static class TableRowSnapshot implements diarsid.jdbc.api.sqltable.rows.Row {
+
+        private final List<String> columns;
+        private final Object[] values;
+
+        private TableRowSnapshot(List<String> columns, Object[] values) {
+            this.columns = columns;
+            this.values = values;
+        }
+
+        @Override
+        public Object get(String column) {
+            int columnIndex = this.columns.indexOf(column);
+
+            if ( columnIndex < 0 || columnIndex >= this.values.length ) {
+                throw new IllegalArgumentException();
+            }
+
+            return this.values[columnIndex];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(String column, Class<T> t) {
+            return (T) this.get(column);
+        }
+
+        @Override
+        public byte[] getBytes(String column) {
+            return (byte[]) this.get(column);
+        }
+
+        @Override
+        public diarsid.jdbc.api.sqltable.rows.Row snapshot() {
+            return this;
+        }
+    }
+
     private final List<String> columns;
     private final List<Object> objects;
     private final TableRow row;
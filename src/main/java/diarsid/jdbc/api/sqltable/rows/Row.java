@@ -4,6 +4,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import diarsid.jdbc.api.exceptions.JdbcException;
+
+import static java.lang.String.format;
+
 public interface Row {
     
     Object get(String columnLabel);
@@ -12,6 +16,19 @@ public interface Row {
     
     byte[] getBytes(String columnLabel);
 
+    /**
+     * Row given to RowOperation is valid only during its call. Snapshot is
+     * an immutable copy of it that can be kept, e.g. in collections or caches,
+     * and used by any thread after iteration is over. Snapshots of rows of
+     * the same query share column labels, so that every snapshot holds
+     * only values, with numeric and boolean values packed into primitive arrays.
+     * Rows of this library support it, other implementations may not.
+     */
+    default Row snapshot() {
+        throw new JdbcException(format(
+                "%s does not support snapshots!", this.getClass().getName()));
+    }
+
     default LocalDate dateOf(String name) {
         return this.get(name, LocalDate.class);
     }
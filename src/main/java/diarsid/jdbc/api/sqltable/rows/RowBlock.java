@@ -0,0 +1,51 @@
+package diarsid.jdbc.api.sqltable.rows;
+
+import diarsid.support.objects.CommonEnum;
+
+/**
+ * Block of consecutive rows of query result, stored by columns. Signed integer columns are
+ * stored in long[] arrays, floating point columns in double[] arrays and all other
+ * columns in Object[] arrays, so that aggregations can run plain loops over arrays.
+ * Only first size() elements of arrays belong to the current block. Arrays are reused
+ * for the next block, so block and its arrays are valid only during RowBlockOperation
+ * call and must be neither kept nor passed to other threads.
+ */
+public interface RowBlock {
+
+    enum ColumnKind implements CommonEnum<ColumnKind> {
+        LONG,
+        DOUBLE,
+        OBJECT
+    }
+
+    int size();
+
+    int columnsCount();
+
+    /**
+     * @return zero-based index of column with given label
+     */
+    int columnIndex(String columnLabel);
+
+    ColumnKind kindOf(int column);
+
+    long[] longs(int column);
+
+    double[] doubles(int column);
+
+    Object[] objects(int column);
+
+    boolean isNull(int column, int row);
+
+    default long[] longs(String columnLabel) {
+        return this.longs(this.columnIndex(columnLabel));
+    }
+
+    default double[] doubles(String columnLabel) {
+        return this.doubles(this.columnIndex(columnLabel));
+    }
+
+    default Object[] objects(String columnLabel) {
+        return this.objects(this.columnIndex(columnLabel));
+    }
+}
@@ -0,0 +1,7 @@
+package diarsid.jdbc.api.sqltable.rows;
+
+@FunctionalInterface
+public interface RowBlockOperation {
+
+    void process(RowBlock block);
+}
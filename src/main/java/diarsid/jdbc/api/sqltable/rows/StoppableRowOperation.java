@@ -0,0 +1,21 @@
+package diarsid.jdbc.api.sqltable.rows;
+
+/**
+ * RowOperation that is able to stop rows iteration when it has found what it needs,
+ * so that cursor is closed without reading the rest of rows. It is accepted by every
+ * method accepting RowOperation. Lambda has to be typed explicitly, e.g. assigned to
+ * StoppableRowOperation variable, otherwise it is treated as a plain RowOperation.
+ */
+@FunctionalInterface
+public interface StoppableRowOperation extends RowOperation {
+
+    /**
+     * @return true to proceed to the next row, false to stop iteration
+     */
+    boolean processAndProceed(Row row);
+
+    @Override
+    default void process(Row row) {
+        this.processAndProceed(row);
+    }
+}
@@ -0,0 +1,150 @@
+package diarsid.jdbc.api.sqltable.rows.collectors;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.sqltable.rows.Row;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/*
+ * Streaming variant of RowsCollectorOneToManyMap for queries ordered by ONE id, e.g.
+ *   SELECT ... FROM ones o LEFT JOIN manies m ON ... ORDER BY o.id
+ * Rows of every ONE must go one after another. ONE with all its MANY is passed to
+ * downstream as soon as row of the next ONE appears, and the last ONE is passed after
+ * all rows are iterated, so that only the current ONE is kept in memory. If rows are
+ * not ordered, the same ONE is passed to downstream several times.
+ * MANY instances are reused by MANY id only within bounded cache of recently created
+ * ones, so that the same MANY appearing in different ONEs far from each other is
+ * created again.
+ */
+public class RowsCollectorOneToManyOrdered<ONE, ONE_ID, MANY, MANY_ID> extends AbstractRowsCollector {
+
+    public static final int DEFAULT_MANY_CACHE_SIZE = 256;
+
+    private final Map<MANY_ID, MANY> recentManysByIds;
+
+    private final Function<Row, ONE_ID> getIdOne;
+    private final Function<Row, MANY_ID> getIdMany;
+    private final Function<Row, ONE> getInstanceOne;
+    private final Function<Row, MANY> getInstanceMany;
+    private final BiConsumer<ONE, List<MANY>> downstream;
+
+    private ONE_ID currentOneId;
+    private ONE currentOne;
+    private List<MANY> currentManys;
+    private long passedOnesCount;
+
+    public RowsCollectorOneToManyOrdered(
+            Function<Row, ONE_ID> getIdOne,
+            Function<Row, MANY_ID> getIdMany,
+            Function<Row, ONE> getInstanceOne,
+            Function<Row, MANY> getInstanceMany,
+            BiConsumer<ONE, List<MANY>> downstream) {
+        this(getIdOne, getIdMany, getInstanceOne, getInstanceMany, downstream, DEFAULT_MANY_CACHE_SIZE);
+    }
+
+    public RowsCollectorOneToManyOrdered(
+            Function<Row, ONE_ID> getIdOne,
+            Function<Row, MANY_ID> getIdMany,
+            Function<Row, ONE> getInstanceOne,
+            Function<Row, MANY> getInstanceMany,
+            BiConsumer<ONE, List<MANY>> downstream,
+            int manyCacheSize) {
+        if ( manyCacheSize < 0 ) {
+            throw new JdbcException("MANY cache size must not be negative!");
+        }
+
+        this.getIdOne = getIdOne;
+        this.getIdMany = getIdMany;
+        this.getInstanceOne = getInstanceOne;
+        this.getInstanceMany = getInstanceMany;
+        this.downstream = downstream;
+        this.recentManysByIds = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MANY_ID, MANY> eldest) {
+                return this.size() > manyCacheSize;
+            }
+        };
+        this.currentOneId = null;
+        this.currentOne = null;
+        this.currentManys = null;
+        this.passedOnesCount = 0;
+    }
+
+    @Override
+    public void beforeRows() {
+        this.dropCurrentOne();
+    }
+
+    @Override
+    public void process(Row row) {
+        super.iteratedRowsCount.incrementAndGet();
+
+        ONE_ID oneId = getIdOne.apply(row);
+        MANY_ID manyId = getIdMany.apply(row);
+
+        if ( isNull(this.currentOne) || ! Objects.equals(this.currentOneId, oneId) ) {
+            this.passCurrentOne();
+            this.currentOneId = oneId;
+            this.currentOne = getInstanceOne.apply(row);
+            this.currentManys = new ArrayList<>();
+        }
+
+        if ( nonNull(manyId) ) {
+            MANY many = this.recentManysByIds.get(manyId);
+
+            if ( isNull(many) ) {
+                many = getInstanceMany.apply(row);
+                this.recentManysByIds.put(manyId, many);
+            }
+
+            this.currentManys.add(many);
+        }
+    }
+
+    @Override
+    public void afterRows() {
+        this.passCurrentOne();
+        this.recentManysByIds.clear();
+    }
+
+    private void passCurrentOne() {
+        if ( isNull(this.currentOne) ) {
+            return;
+        }
+
+        ONE one = this.currentOne;
+        List<MANY> manys = this.currentManys;
+        this.dropCurrentOne();
+
+        this.passedOnesCount++;
+        this.downstream.accept(one, manys);
+    }
+
+    private void dropCurrentOne() {
+        this.currentOneId = null;
+        this.currentOne = null;
+        this.currentManys = null;
+    }
+
+    public long passedOnesCount() {
+        return this.passedOnesCount;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.dropCurrentOne();
+        this.recentManysByIds.clear();
+        this.passedOnesCount = 0;
+    }
+}
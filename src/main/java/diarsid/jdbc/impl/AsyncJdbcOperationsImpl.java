@@ -0,0 +1,264 @@
+package diarsid.jdbc.impl;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import diarsid.jdbc.api.AsyncJdbcOperations;
+import diarsid.jdbc.api.Cancellable;
+import diarsid.jdbc.api.ThreadBoundJdbcTransaction;
+import diarsid.jdbc.api.TransactionOptions;
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+import diarsid.jdbc.api.sqltable.rows.RowOperation;
+
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+
+import static diarsid.jdbc.api.TransactionOptions.DEFAULT;
+
+/*
+ * Operations are delegated to blocking JdbcImpl methods, executed by bounded
+ * thread pool. Thread that runs an operation is remembered until operation is
+ * finished, so that cancellation of future cancels statement executed by this
+ * thread outside of transaction and interrupts it. Interruption flag
+ * is cleared after every operation, so that late interruption never leaks into
+ * the next operation executed by the same thread.
+ */
+class AsyncJdbcOperationsImpl implements AsyncJdbcOperations, AutoCloseable {
+
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    private final JdbcImpl jdbc;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final AtomicInteger maxQueued;
+    private final AtomicLong rejected;
+
+    AsyncJdbcOperationsImpl(JdbcImpl jdbc, int threads, int queueCapacity) {
+        this.jdbc = jdbc;
+        this.queueCapacity = queueCapacity;
+        this.maxQueued = new AtomicInteger();
+        this.rejected = new AtomicLong();
+
+        AtomicInteger threadsCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                IDLE_THREAD_KEEP_ALIVE_SECONDS,
+                SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "jdbc-async-" + threadsCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AtomicReference<Thread> runner = new AtomicReference<>();
+
+        Runnable task = () -> {
+            /* runner is set before check, so that cancellation either is seen here or sees runner */
+            synchronized ( runner ) {
+                runner.set(Thread.currentThread());
+            }
+
+            try {
+                if ( ! future.isDone() ) {
+                    future.complete(operation.get());
+                }
+            }
+            catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+            finally {
+                synchronized ( runner ) {
+                    runner.set(null);
+                }
+                Thread.interrupted();
+            }
+        };
+
+        future.whenComplete((result, failure) -> {
+            if ( future.isCancelled() ) {
+                synchronized ( runner ) {
+                    Thread thread = runner.get();
+                    if ( nonNull(thread) ) {
+                        this.jdbc.runningStatements().cancelStatementOf(thread);
+                        thread.interrupt();
+                    }
+                }
+            }
+        });
+
+        try {
+            this.executor.execute(task);
+            this.maxQueued.accumulateAndGet(this.executor.getQueue().size(), Math::max);
+        }
+        catch (RejectedExecutionException e) {
+            this.rejected.incrementAndGet();
+            future.completeExceptionally(new JdbcException("Async operations queue is full!"));
+        }
+
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Void> doQuery(RowOperation operation, String sql, Object... params) {
+        return this.submit(() -> {
+            this.jdbc.doQuery(operation, sql, params);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> doQuery(RowOperation operation, String sql, List params) {
+        return this.submit(() -> {
+            this.jdbc.doQuery(operation, sql, params);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> doQueryAndConvert(RowGetter<T> conversion, String sql, Object... params) {
+        return this.submit(() -> this.jdbc.doQueryAndStream(conversion, sql, params).collect(toList()));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> doQueryAndConvert(RowGetter<T> conversion, String sql, List params) {
+        return this.submit(() -> this.jdbc.doQueryAndStream(conversion, sql, params).collect(toList()));
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<T>> doQueryAndConvertFirstRow(RowGetter<T> conversion, String sql, Object... params) {
+        return this.submit(() -> this.jdbc.doQueryAndConvertFirstRow(conversion, sql, params));
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<T>> doQueryAndConvertFirstRow(RowGetter<T> conversion, String sql, List params) {
+        return this.submit(() -> this.jdbc.doQueryAndConvertFirstRow(conversion, sql, params));
+    }
+
+    @Override
+    public CompletableFuture<Integer> countQueryResults(String sql, Object... params) {
+        return this.submit(() -> this.jdbc.countQueryResults(sql, params));
+    }
+
+    @Override
+    public CompletableFuture<Integer> countQueryResults(String sql, List params) {
+        return this.submit(() -> this.jdbc.countQueryResults(sql, params));
+    }
+
+    @Override
+    public CompletableFuture<Integer> doUpdate(String updateSql, Object... params) {
+        return this.submit(() -> this.jdbc.doUpdate(updateSql, params));
+    }
+
+    @Override
+    public CompletableFuture<Integer> doUpdate(String updateSql, List params) {
+        return this.submit(() -> this.jdbc.doUpdate(updateSql, params));
+    }
+
+    @Override
+    public CompletableFuture<int[]> doBatchUpdate(String updateSql, List<List> batchParams) {
+        return this.submit(() -> this.jdbc.doBatchUpdate(updateSql, batchParams));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> doInTransactionAsync(
+            Function<ThreadBoundJdbcTransaction, T> transactionalFunction) {
+        return this.submitInTransaction(DEFAULT, transactionalFunction);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> doInTransactionAsync(
+            TransactionOptions options, Function<ThreadBoundJdbcTransaction, T> transactionalFunction) {
+        return this.submitInTransaction(options, transactionalFunction);
+    }
+
+    /* statements of transaction are not registered as running, they are cancelled through transaction */
+    private <T> CompletableFuture<T> submitInTransaction(
+            TransactionOptions options, Function<ThreadBoundJdbcTransaction, T> transactionalFunction) {
+        AtomicReference<Cancellable> cancellation = new AtomicReference<>();
+        AtomicReference<CompletableFuture<T>> submitted = new AtomicReference<>();
+
+        CompletableFuture<T> future = this.submit(() -> this.jdbc.doInTransaction(options, transaction -> {
+            cancellation.set(transaction.cancellation());
+            CompletableFuture<T> self = submitted.get();
+            if ( nonNull(self) && self.isCancelled() ) {
+                transaction.cancellation().cancel();
+            }
+            return transactionalFunction.apply(transaction);
+        }));
+
+        submitted.set(future);
+        future.whenComplete((result, failure) -> {
+            if ( future.isCancelled() ) {
+                Cancellable transactionCancellation = cancellation.get();
+                if ( nonNull(transactionCancellation) ) {
+                    transactionCancellation.cancel();
+                }
+            }
+        });
+
+        return future;
+    }
+
+    @Override
+    public Metrics metrics() {
+        return new Metrics() {
+
+            @Override
+            public int threads() {
+                return executor.getPoolSize();
+            }
+
+            @Override
+            public int activeOperations() {
+                return executor.getActiveCount();
+            }
+
+            @Override
+            public int queuedOperations() {
+                return executor.getQueue().size();
+            }
+
+            @Override
+            public int maxQueuedOperations() {
+                return maxQueued.get();
+            }
+
+            @Override
+            public int queueCapacity() {
+                return queueCapacity;
+            }
+
+            @Override
+            public long completedOperations() {
+                return executor.getCompletedTaskCount();
+            }
+
+            @Override
+            public long rejectedOperations() {
+                return rejected.get();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+}
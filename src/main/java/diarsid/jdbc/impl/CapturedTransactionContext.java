@@ -0,0 +1,92 @@
+package diarsid.jdbc.impl;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import diarsid.jdbc.api.TransactionContext;
+import diarsid.jdbc.api.exceptions.ForbiddenTransactionOperation;
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.impl.transaction.JdbcTransactionReal;
+
+import static java.util.Objects.nonNull;
+
+import static diarsid.jdbc.api.JdbcTransaction.State.OPEN;
+
+class CapturedTransactionContext implements TransactionContext {
+
+    private final JdbcTransactionReal transaction;
+    private final JdbcTransactionThreadBindingControl threadBinding;
+
+    CapturedTransactionContext(JdbcTransactionReal transaction, JdbcTransactionThreadBindingControl threadBinding) {
+        this.transaction = transaction;
+        this.threadBinding = threadBinding;
+    }
+
+    @Override
+    public void run(Runnable task) {
+        this.get(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T get(Supplier<T> task) {
+        try {
+            return this.callUnder(task::get);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new JdbcException(t);
+        }
+    }
+
+    @Override
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            try {
+                return this.callUnder(task);
+            }
+            catch (Exception | Error e) {
+                throw e;
+            }
+            catch (Throwable t) {
+                throw new JdbcException(t);
+            }
+        };
+    }
+
+    private <T> T callUnder(Callable<T> task) throws Throwable {
+        JdbcTransactionReal bound = this.threadBinding.currentTransactionOrNull();
+
+        if ( bound == this.transaction ) {
+            return task.call();
+        }
+
+        if ( nonNull(bound) ) {
+            throw new ForbiddenTransactionOperation("Current thread is already bound to other transaction!");
+        }
+
+        this.transaction.borrow();
+        try {
+            this.threadBinding.bindExisting(this.transaction);
+            try {
+                return task.call();
+            }
+            catch (Throwable t) {
+                if ( this.transaction.state().equalTo(OPEN) ) {
+                    this.transaction.fail();
+                }
+                throw t;
+            }
+            finally {
+                this.threadBinding.unbind();
+            }
+        }
+        finally {
+            this.transaction.giveBack();
+        }
+    }
+}
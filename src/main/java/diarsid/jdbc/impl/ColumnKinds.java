@@ -0,0 +1,45 @@
+package diarsid.jdbc.impl;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import diarsid.jdbc.api.sqltable.rows.RowBlock.ColumnKind;
+
+import static java.sql.Types.BIGINT;
+import static java.sql.Types.DOUBLE;
+import static java.sql.Types.FLOAT;
+import static java.sql.Types.INTEGER;
+import static java.sql.Types.REAL;
+import static java.sql.Types.SMALLINT;
+import static java.sql.Types.TINYINT;
+
+/*
+ * Single classification of result columns into primitive and object storage,
+ * shared by all places that copy rows into primitive arrays. Unsigned integers
+ * are kept as objects, because their values may not fit into signed types of
+ * the same size, e.g. MySQL BIGINT UNSIGNED overflows long.
+ */
+final class ColumnKinds {
+
+    private ColumnKinds() {
+    }
+
+    /*
+     * @param column one-based column index as in ResultSetMetaData
+     */
+    static ColumnKind kindOf(ResultSetMetaData metaData, int column) throws SQLException {
+        switch ( metaData.getColumnType(column) ) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                return metaData.isSigned(column) ? ColumnKind.LONG : ColumnKind.OBJECT;
+            case REAL:
+            case FLOAT:
+            case DOUBLE:
+                return ColumnKind.DOUBLE;
+            default:
+                return ColumnKind.OBJECT;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package diarsid.jdbc.impl;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.sqltable.rows.RowBlock;
+
+import static java.lang.String.format;
+
+/*
+ * Column arrays and null flags are allocated once per query for the whole
+ * block capacity and are refilled for every next block.
+ */
+public class ColumnarRowBlock implements RowBlock {
+
+    private final int capacity;
+    private final ColumnKind[] kinds;
+    private final Map<String, Integer> indexes;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final Object[][] objects;
+    private final boolean[][] nulls;
+    private int size;
+    private boolean exhausted;
+
+    private ColumnarRowBlock(ResultSetMetaData metaData, int capacity) throws SQLException {
+        int count = metaData.getColumnCount();
+
+        this.capacity = capacity;
+        this.kinds = new ColumnKind[count];
+        this.indexes = new HashMap<>();
+        this.longs = new long[count][];
+        this.doubles = new double[count][];
+        this.objects = new Object[count][];
+        this.nulls = new boolean[count][];
+        this.size = 0;
+        this.exhausted = false;
+
+        String label;
+        for ( int i = 0; i < count; i++ ) {
+            label = metaData.getColumnLabel(i + 1);
+            this.indexes.putIfAbsent(label, i);
+            this.indexes.putIfAbsent(label.toLowerCase(), i);
+
+            this.kinds[i] = ColumnKinds.kindOf(metaData, i + 1);
+            switch ( this.kinds[i] ) {
+                case LONG:
+                    this.longs[i] = new long[capacity];
+                    this.nulls[i] = new boolean[capacity];
+                    break;
+                case DOUBLE:
+                    this.doubles[i] = new double[capacity];
+                    this.nulls[i] = new boolean[capacity];
+                    break;
+                default:
+                    this.objects[i] = new Object[capacity];
+            }
+        }
+    }
+
+    public static void mustBeValidBlockSize(int blockSize) {
+        if ( blockSize < 1 ) {
+            throw new JdbcException("Rows block size must be positive!");
+        }
+    }
+
+    public static ColumnarRowBlock allocate(ResultSet rs, int capacity) throws SQLException {
+        return new ColumnarRowBlock(rs.getMetaData(), capacity);
+    }
+
+    /*
+     * @return false if there are no more rows, true if block contains at least one row
+     */
+    public boolean fillFrom(ResultSet rs, RowsIteration.Cursor cursor) throws SQLException {
+        this.size = 0;
+
+        while ( this.size < this.capacity && ! this.exhausted ) {
+            if ( cursor.next(rs) ) {
+                this.copyCurrentRow(rs, this.size);
+                this.size++;
+            }
+            else {
+                this.exhausted = true;
+            }
+        }
+
+        return this.size > 0;
+    }
+
+    private void copyCurrentRow(ResultSet rs, int row) throws SQLException {
+        for ( int i = 0; i < this.kinds.length; i++ ) {
+            switch ( this.kinds[i] ) {
+                case LONG:
+                    this.longs[i][row] = rs.getLong(i + 1);
+                    this.nulls[i][row] = rs.wasNull();
+                    break;
+                case DOUBLE:
+                    this.doubles[i][row] = rs.getDouble(i + 1);
+                    this.nulls[i][row] = rs.wasNull();
+                    break;
+                default:
+                    this.objects[i][row] = rs.getObject(i + 1);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public int columnsCount() {
+        return this.kinds.length;
+    }
+
+    @Override
+    public int columnIndex(String columnLabel) {
+        Integer index = this.indexes.get(columnLabel);
+
+        if ( Objects.isNull(index) ) {
+            index = this.indexes.get(columnLabel.toLowerCase());
+        }
+
+        if ( Objects.isNull(index) ) {
+            throw new JdbcException(format("Column '%s' not found in block!", columnLabel));
+        }
+
+        return index;
+    }
+
+    @Override
+    public ColumnKind kindOf(int column) {
+        return this.kinds[column];
+    }
+
+    @Override
+    public long[] longs(int column) {
+        this.mustBeOfKind(column, ColumnKind.LONG);
+        return this.longs[column];
+    }
+
+    @Override
+    public double[] doubles(int column) {
+        this.mustBeOfKind(column, ColumnKind.DOUBLE);
+        return this.doubles[column];
+    }
+
+    @Override
+    public Object[] objects(int column) {
+        this.mustBeOfKind(column, ColumnKind.OBJECT);
+        return this.objects[column];
+    }
+
+    @Override
+    public boolean isNull(int column, int row) {
+        if ( this.kinds[column].equalTo(ColumnKind.OBJECT) ) {
+            return Objects.isNull(this.objects[column][row]);
+        }
+        else {
+            return this.nulls[column][row];
+        }
+    }
+
+    private void mustBeOfKind(int column, ColumnKind kind) {
+        if ( this.kinds[column].notEqualTo(kind) ) {
+            throw new JdbcException(format("Column %s is %s, not %s!", column, this.kinds[column], kind));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package diarsid.jdbc.impl;
 
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -21,12 +22,20 @@ import diarsid.support.objects.references.References;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
+import static diarsid.jdbc.api.JdbcOption.ASYNC_QUEUE_CAPACITY;
+import static diarsid.jdbc.api.JdbcOption.ASYNC_THREADS;
 import static diarsid.jdbc.api.JdbcOption.JDBC_PREPARED_STATEMENT_SETTERS;
+import static diarsid.jdbc.api.JdbcOption.NESTED_TRANSACTIONS_AS_SAVEPOINTS;
+import static diarsid.jdbc.api.JdbcOption.SKIP_COMMIT_WITHOUT_WRITES;
 import static diarsid.jdbc.api.JdbcOption.SQL_HISTORY_ENABLED;
 import static diarsid.jdbc.api.JdbcOption.SQL_HISTORY_PARAMS_REPLACE;
+import static diarsid.jdbc.api.JdbcOption.TRANSACTION_WATCHDOG_ABORTS;
+import static diarsid.jdbc.api.JdbcOption.TRANSACTION_WATCHDOG_THRESHOLD;
 
 public class JdbcBuilder {
 
+    private static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 1000;
+
     private final SqlConnectionsSource connectionsSource;
     private final Map<JdbcOption, Object> options;
 
@@ -34,6 +43,12 @@ public class JdbcBuilder {
     private JdbcPreparedStatementSetter setter;
     private Boolean sqlHistoryEnabled;
     private Boolean sqlHistoryParamsReplace;
+    private Boolean nestedTransactionsAsSavepoints;
+    private Boolean skipCommitWithoutWrites;
+    private Duration watchdogThreshold;
+    private Boolean watchdogAborts;
+    private Integer asyncThreads;
+    private Integer asyncQueueCapacity;
 
     public JdbcBuilder(SqlConnectionsSource source) {
         testConnectivity(source);
@@ -61,6 +76,10 @@ public class JdbcBuilder {
         this.configureSqlLogger();
         this.configureIfSqlHistoryEnabled();
         this.configureIfReplaceParamsSqlHistoryEnabled();
+        this.configureIfNestedTransactionsAsSavepoints();
+        this.configureIfSkipCommitWithoutWrites();
+        this.configureTransactionWatchdog();
+        this.configureAsyncOperations();
 
         SqlTypeToJavaTypeConverter typesConverter = new SqlTypeToJavaTypeConverter(
                 new SqlTimestampToSqlLocalDateTimeConversion(),
@@ -71,7 +90,13 @@ public class JdbcBuilder {
                 this.setter,
                 typesConverter,
                 References.simplePresentOf(this.sqlHistoryEnabled),
-                References.simplePresentOf(this.sqlHistoryParamsReplace));
+                References.simplePresentOf(this.sqlHistoryParamsReplace),
+                References.simplePresentOf(this.nestedTransactionsAsSavepoints),
+                References.simplePresentOf(this.skipCommitWithoutWrites),
+                this.watchdogThreshold,
+                this.watchdogAborts,
+                this.asyncThreads,
+                this.asyncQueueCapacity);
     }
 
     private void configurePreparedStatementSetter() {
@@ -104,6 +129,36 @@ public class JdbcBuilder {
         this.sqlHistoryParamsReplace = bool;
     }
 
+    private void configureIfNestedTransactionsAsSavepoints() {
+        Boolean bool = this.getOptionOr(NESTED_TRANSACTIONS_AS_SAVEPOINTS, Boolean.class, false);
+        this.nestedTransactionsAsSavepoints = bool;
+    }
+
+    private void configureIfSkipCommitWithoutWrites() {
+        Boolean bool = this.getOptionOr(SKIP_COMMIT_WITHOUT_WRITES, Boolean.class, false);
+        this.skipCommitWithoutWrites = bool;
+    }
+
+    private void configureTransactionWatchdog() {
+        Duration threshold = this.getOptionOr(TRANSACTION_WATCHDOG_THRESHOLD, Duration.class, null);
+
+        if ( nonNull(threshold) && ( threshold.isNegative() || threshold.isZero() ) ) {
+            throw new JdbcException("Transaction watchdog threshold must be positive!");
+        }
+
+        this.watchdogThreshold = threshold;
+        this.watchdogAborts = this.getOptionOr(TRANSACTION_WATCHDOG_ABORTS, Boolean.class, false);
+    }
+
+    private void configureAsyncOperations() {
+        this.asyncThreads = this.getOptionOr(ASYNC_THREADS, Integer.class, Runtime.getRuntime().availableProcessors());
+        this.asyncQueueCapacity = this.getOptionOr(ASYNC_QUEUE_CAPACITY, Integer.class, DEFAULT_ASYNC_QUEUE_CAPACITY);
+
+        if ( this.asyncThreads < 1 || this.asyncQueueCapacity < 1 ) {
+            throw new JdbcException("Async threads and queue capacity must be positive!");
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private <T> T getOptionOr(JdbcOption option, Class<T> type, T defaultValue) {
         Object value = this.options.get(option);
@@ -5,9 +5,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -16,21 +18,29 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import diarsid.jdbc.api.AsyncJdbcOperations;
 import diarsid.jdbc.api.Jdbc;
 import diarsid.jdbc.api.JdbcDirectOperation;
 import diarsid.jdbc.api.JdbcOption;
 import diarsid.jdbc.api.JdbcTransaction;
+import diarsid.jdbc.api.OpenTransactionInfo;
+import diarsid.jdbc.api.RetryPolicy;
 import diarsid.jdbc.api.SqlConnectionsSource;
 import diarsid.jdbc.api.ThreadBoundJdbcTransaction;
 import diarsid.jdbc.api.TransactionAware;
+import diarsid.jdbc.api.TransactionOptions;
+import diarsid.jdbc.api.TransactionOptions.Isolation;
 import diarsid.jdbc.api.exceptions.ForbiddenTransactionOperation;
 import diarsid.jdbc.api.exceptions.JdbcException;
 import diarsid.jdbc.api.exceptions.JdbcPreparedStatementParamsException;
 import diarsid.jdbc.api.sqltable.rows.Row;
+import diarsid.jdbc.api.sqltable.rows.RowBlockOperation;
 import diarsid.jdbc.api.sqltable.rows.RowGetter;
 import diarsid.jdbc.api.sqltable.rows.RowOperation;
 import diarsid.jdbc.impl.conversion.sql2java.SqlTypeToJavaTypeConverter;
 import diarsid.jdbc.impl.transaction.JdbcTransactionReal;
+import diarsid.jdbc.impl.transaction.JdbcTransactionReal.AcquiredConnection;
+import diarsid.jdbc.impl.transaction.OpenTransactionsRegistry;
 import diarsid.support.functional.ThrowingConsumer;
 import diarsid.support.functional.ThrowingFunction;
 import diarsid.support.objects.references.Present;
@@ -39,10 +49,18 @@ import static java.lang.String.format;
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
 import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.toList;
 
-import static diarsid.jdbc.api.Jdbc.WhenNoTransactionThen.IF_NO_TRANSACTION_OPEN_NEW;
+import static diarsid.jdbc.api.JdbcTransaction.State.OPEN;
 import static diarsid.jdbc.api.JdbcTransaction.ThenDo.CLOSE;
+import static diarsid.jdbc.api.TransactionOptions.DEFAULT;
+import static diarsid.jdbc.impl.ColumnarRowBlock.mustBeValidBlockSize;
+import static diarsid.jdbc.impl.ParallelRowsProcessing.mustBeValidParallelism;
+import static diarsid.jdbc.impl.PipelinedRowsIteration.mustBeValidDepth;
+import static diarsid.jdbc.impl.RowsIteration.nextRowIfNotInterrupted;
+import static diarsid.jdbc.impl.RowsIteration.processAndProceed;
 import static diarsid.jdbc.impl.RowsIteration.whenRowsIterationAwareDoAfter;
 import static diarsid.jdbc.impl.RowsIteration.whenRowsIterationAwareDoBefore;
 
@@ -55,29 +73,68 @@ public class JdbcImpl implements Jdbc {
     private final JdbcImplStaticResources resources;
     private final Present<Boolean> sqlHistoryEnabled;
     private final Present<Boolean> replaceSqlParamsInHistory;
+    private final Present<Boolean> nestedTransactionsAsSavepoints;
+    private final Present<Boolean> skipCommitWithoutWrites;
+    private final OpenTransactionsRegistry openTransactions;
+    private final RunningStatements runningStatements;
+    private final TransactionWatchdog watchdog;
+    private final AsyncJdbcOperationsImpl async;
 
     public JdbcImpl(
             SqlConnectionsSource connectionsSource,
             JdbcPreparedStatementSetter paramsSetter,
             SqlTypeToJavaTypeConverter sqlTypeToJavaTypeConverter,
             Present<Boolean> sqlHistoryEnabled,
-            Present<Boolean> replaceSqlParamsInHistory) {
+            Present<Boolean> replaceSqlParamsInHistory,
+            Present<Boolean> nestedTransactionsAsSavepoints,
+            Present<Boolean> skipCommitWithoutWrites,
+            Duration watchdogThreshold,
+            boolean watchdogAborts,
+            int asyncThreads,
+            int asyncQueueCapacity) {
         this.connectionsSource = connectionsSource;
         this.threadBinding = new JdbcTransactionThreadBindingControlImpl(this);
         this.resources = new JdbcImplStaticResources(paramsSetter, sqlTypeToJavaTypeConverter);
         this.sqlHistoryEnabled = sqlHistoryEnabled;
         this.replaceSqlParamsInHistory = replaceSqlParamsInHistory;
+        this.nestedTransactionsAsSavepoints = nestedTransactionsAsSavepoints;
+        this.skipCommitWithoutWrites = skipCommitWithoutWrites;
+        this.openTransactions = new OpenTransactionsRegistry();
+        this.runningStatements = new RunningStatements();
+
+        if ( nonNull(watchdogThreshold) ) {
+            this.watchdog = new TransactionWatchdog(this.openTransactions, watchdogThreshold, watchdogAborts);
+        }
+        else {
+            this.watchdog = null;
+        }
+
+        this.async = new AsyncJdbcOperationsImpl(this, asyncThreads, asyncQueueCapacity);
     }
 
     @Override
     public JdbcTransaction createTransaction() {
+        return this.createTransaction(DEFAULT);
+    }
+
+    @Override
+    public JdbcTransaction createTransaction(TransactionOptions options) {
+        return this.createTransaction(options, false);
+    }
+
+    /*
+     * Lazy transaction acquires connection only on the first operation. It is used
+     * for thread bound transactions that are opened implicitly, e.g. by
+     * doInTransaction or by transactional proxy.
+     */
+    JdbcTransaction createTransaction(TransactionOptions options, boolean lazy) {
         logger.info("creating transaction");
         if ( this.threadBinding.isBound() ) {
             throw new ForbiddenTransactionOperation(
                     "It is not allowed to nest transactions! Thread bound transaction already exists!");
         }
 
-        JdbcTransaction tx = this.createNewTransaction();
+        JdbcTransaction tx = this.createNewTransaction(options, lazy);
         this.threadBinding.bindExisting(tx);
         this.setUnbindOnClose(tx);
         return tx;
@@ -90,43 +147,61 @@ public class JdbcImpl implements Jdbc {
 
     @Override
     public void doInTransaction(Consumer<ThreadBoundJdbcTransaction> transactionalOperation) {
-        if ( this.threadBinding.isBound() ) {
-            throw new ForbiddenTransactionOperation(
-                    "It is not allowed to nest transactions! Thread bound transaction already exists!");
-        }
+        this.doInTransaction(DEFAULT, transactionalOperation);
+    }
 
-        this.threadBinding.bindNew();
-        JdbcTransactionReal transaction = (JdbcTransactionReal) this.threadBinding.currentTransaction();
-        try {
+    @Override
+    public void doInTransaction(
+            TransactionOptions options, Consumer<ThreadBoundJdbcTransaction> transactionalOperation) {
+        this.doInTransaction(options, transaction -> {
             transactionalOperation.accept(transaction);
-            transaction.commitAndClose();
-        }
-        catch (RuntimeException exception) {
-            if ( transaction.state().isOpen() ) {
-                transaction.rollbackAnd(CLOSE);
-            }
-            throw exception;
-        }
-        catch (Throwable exception) {
-            if ( transaction.state().isOpen() ) {
-                transaction.rollbackAnd(CLOSE);
-            }
-            throw new JdbcException(exception);
-        }
-        finally {
-            this.threadBinding.unbind();
-        }
+            return null;
+        });
     }
 
     @Override
     public <T> T doInTransaction(Function<ThreadBoundJdbcTransaction, T> transactionalFunction) {
+        return this.doInTransaction(DEFAULT, transactionalFunction);
+    }
+
+    @Override
+    public <T> T doInTransaction(
+            TransactionOptions options, Function<ThreadBoundJdbcTransaction, T> transactionalFunction) {
         if ( this.threadBinding.isBound() ) {
-            throw new ForbiddenTransactionOperation(
-                    "It is not allowed to nest transactions! Thread bound transaction already exists!");
+            return this.doInSavepoint(transactionalFunction);
         }
 
-        this.threadBinding.bindNew();
+        RetryPolicy retry = options.retry();
+        int attempt = 1;
+        RuntimeException previousFailure = null;
+
+        while ( true ) {
+            try {
+                return this.doInNewTransaction(options, transactionalFunction, attempt, previousFailure);
+            }
+            catch (RuntimeException failure) {
+                if ( retry.allowsRetryAfter(attempt, failure) ) {
+                    pauseBeforeRetry(retry, attempt, failure);
+                    previousFailure = failure;
+                    attempt++;
+                }
+                else {
+                    throw failure;
+                }
+            }
+        }
+    }
+
+    private <T> T doInNewTransaction(
+            TransactionOptions options,
+            Function<ThreadBoundJdbcTransaction, T> transactionalFunction,
+            int attempt,
+            Throwable previousFailure) {
+        this.threadBinding.bindNew(options);
         JdbcTransactionReal transaction = (JdbcTransactionReal) this.threadBinding.currentTransaction();
+        if ( attempt > 1 ) {
+            transaction.recordInHistory(retryAttemptDescription(options.retry(), attempt, previousFailure));
+        }
         try {
             T t = transactionalFunction.apply(transaction);
             transaction.commitAndClose();
@@ -149,6 +224,27 @@ public class JdbcImpl implements Jdbc {
         }
     }
 
+    static String retryAttemptDescription(RetryPolicy retry, int attempt, Throwable previousFailure) {
+        return format("transaction retry, attempt %s of %s after failure: %s",
+                attempt, retry.maxAttempts(), previousFailure);
+    }
+
+    static void pauseBeforeRetry(RetryPolicy retry, int attempt, RuntimeException failure) {
+        long millis = retry.backoffMillisAfter(attempt);
+        logger.warn(format("transaction attempt %s of %s failed, will be retried in %s ms: %s",
+                attempt, retry.maxAttempts(), millis, failure));
+
+        if ( millis > 0 ) {
+            try {
+                Thread.sleep(millis);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw failure;
+            }
+        }
+    }
+
     @Override
     public void doInTransactionThrowing(ThrowingConsumer<ThreadBoundJdbcTransaction> transactionalOperation) throws Throwable {
 
@@ -157,8 +253,7 @@ public class JdbcImpl implements Jdbc {
     @Override
     public <T> T doInTransactionThrowing(ThrowingFunction<ThreadBoundJdbcTransaction, T> transactionalFunction) throws Throwable {
         if ( this.threadBinding.isBound() ) {
-            throw new ForbiddenTransactionOperation(
-                    "It is not allowed to nest transactions! Thread bound transaction already exists!");
+            return this.doInSavepointThrowing(transactionalFunction);
         }
 
         this.threadBinding.bindNew();
@@ -179,13 +274,77 @@ public class JdbcImpl implements Jdbc {
         }
     }
 
+    /*
+     * Nested transaction is executed within a savepoint of the thread bound
+     * transaction: its failure rolls back only changes made after the savepoint
+     * and leaves the outer transaction open. Nested transaction always shares
+     * options of the outer transaction.
+     */
+    private JdbcTransactionReal transactionToNestIn() {
+        if ( ! this.nestedTransactionsAsSavepoints.get() ) {
+            throw new ForbiddenTransactionOperation(
+                    "It is not allowed to nest transactions! Thread bound transaction already exists!");
+        }
+
+        JdbcTransactionReal transaction = (JdbcTransactionReal) this.threadBinding.currentTransaction();
+
+        if ( transaction.state().notEqualTo(OPEN) ) {
+            throw new ForbiddenTransactionOperation("Transaction is " + transaction.state());
+        }
+
+        return transaction;
+    }
+
+    private <T> T doInSavepoint(Function<ThreadBoundJdbcTransaction, T> transactionalFunction) {
+        try {
+            return this.doInSavepointThrowing(transactionalFunction::apply);
+        }
+        catch (RuntimeException exception) {
+            throw exception;
+        }
+        catch (Throwable exception) {
+            throw new JdbcException(exception);
+        }
+    }
+
+    private <T> T doInSavepointThrowing(
+            ThrowingFunction<ThreadBoundJdbcTransaction, T> transactionalFunction) throws Throwable {
+        JdbcTransactionReal transaction = this.transactionToNestIn();
+        transaction.openSavepoint();
+        T t;
+        try {
+            t = transactionalFunction.applyThrowing(transaction);
+        }
+        catch (Throwable throwable) {
+            if ( transaction.isNested() ) {
+                transaction.rollbackToSavepoint();
+            }
+            throw throwable;
+        }
+        /* if deferred updates fail on release, it rolls back to and removes this savepoint itself */
+        transaction.releaseSavepoint();
+        return t;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <P> P createTransactionalProxyFor(Class<P> type, P p, WhenNoTransactionThen then) {
         P txP = (P) Proxy.newProxyInstance(
                 Jdbc.class.getClassLoader(),
                 new Class[] { type },
-                new TransactionalProxy(p, this, IF_NO_TRANSACTION_OPEN_NEW));
+                new TransactionalProxy(p, this, then));
+
+        return txP;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <P> P createTransactionalProxyFor(
+            Class<P> type, P p, TransactionOptions options, WhenNoTransactionThen then) {
+        P txP = (P) Proxy.newProxyInstance(
+                Jdbc.class.getClassLoader(),
+                new Class[] { type },
+                new TransactionalProxy(p, this, options, then));
 
         return txP;
     }
@@ -201,6 +360,59 @@ public class JdbcImpl implements Jdbc {
         return txP;
     }
 
+    JdbcImplStaticResources resources() {
+        return this.resources;
+    }
+
+    RunningStatements runningStatements() {
+        return this.runningStatements;
+    }
+
+    @Override
+    public List<OpenTransactionInfo> openTransactions() {
+        return this.openTransactions.snapshot();
+    }
+
+    @Override
+    public AsyncJdbcOperations async() {
+        return this.async;
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> doQueryAndPublish(RowGetter<T> conversion, String sql, Object... params) {
+        return this.doQueryAndPublish(conversion, sql, asList(params));
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> doQueryAndPublish(RowGetter<T> conversion, String sql, List params) {
+        return new QueryPublisher<>(this, this.resources.rowsReaders(), conversion, sql, params);
+    }
+
+    @Override
+    public void doQueryPartitioned(RowOperation operation, String table, String keyColumn, int parallelism) {
+        KeyRangePartitions partitions = new KeyRangePartitions(this, table, keyColumn, parallelism);
+
+        whenRowsIterationAwareDoBefore(operation);
+        partitions.process(operation, this.resources.rowsReaders());
+        whenRowsIterationAwareDoAfter(operation);
+    }
+
+    @Override
+    public <T> Stream<T> doQueryPartitionedAndStream(
+            RowGetter<T> conversion, String table, String keyColumn, int parallelism) {
+        KeyRangePartitions partitions = new KeyRangePartitions(this, table, keyColumn, parallelism);
+
+        ScatterGather<T> scatterGather = new ScatterGather<>(
+                partitions.sources(),
+                this.resources.rowsReaders(),
+                conversion,
+                null,
+                ScatterGather.NO_LIMIT,
+                KeyRangePartitions.FETCH_SIZE);
+
+        return scatterGather.stream();
+    }
+
     @Override
     public JdbcTransactionThreadBindingControl threadBinding() {
         return this.threadBinding;
@@ -226,23 +438,82 @@ public class JdbcImpl implements Jdbc {
                 this.replaceSqlParamsInHistory.resetTo(b);
                 break;
             }
+            case NESTED_TRANSACTIONS_AS_SAVEPOINTS: {
+                boolean b = (boolean) value;
+                this.nestedTransactionsAsSavepoints.resetTo(b);
+                break;
+            }
+            case SKIP_COMMIT_WITHOUT_WRITES: {
+                boolean b = (boolean) value;
+                this.skipCommitWithoutWrites.resetTo(b);
+                break;
+            }
             default: throw option.unsupported();
         }
     }
 
-    private JdbcTransaction createNewTransaction() {
-        Connection connection = this.transactionConnection();
-
+    private JdbcTransaction createNewTransaction(TransactionOptions options, boolean lazy) {
         JdbcTransactionReal transaction = new JdbcTransactionReal(
-                connection,
+                () -> this.acquireTransactionConnection(options),
+                lazy,
+                options,
                 this.resources,
                 this.sqlHistoryEnabled.get(),
-                this.replaceSqlParamsInHistory.get());
+                this.replaceSqlParamsInHistory.get(),
+                this.skipCommitWithoutWrites.get(),
+                this.openTransactions);
 
         return transaction;
     }
 
-    private Connection autoCommittableConnection() {
+    private AcquiredConnection acquireTransactionConnection(TransactionOptions options) {
+        Connection connection = this.transactionConnection();
+        TransactionOptions restoring = this.applyTo(connection, options);
+        return new AcquiredConnection(connection, restoring);
+    }
+
+    /*
+     * Applies options to connection and returns options describing connection
+     * state before, so that transaction is able to restore it on close.
+     */
+    private TransactionOptions applyTo(Connection connection, TransactionOptions options) {
+        try {
+            TransactionOptions restoring = DEFAULT;
+
+            if ( options.isReadOnly() ) {
+                if ( connection.isReadOnly() ) {
+                    restoring = restoring.readOnly();
+                }
+                else {
+                    connection.setReadOnly(true);
+                }
+            }
+
+            if ( options.isolation().isNotDefault() ) {
+                int isolationLevel = connection.getTransactionIsolation();
+                if ( isolationLevel != options.isolation().jdbcLevel() ) {
+                    connection.setTransactionIsolation(options.isolation().jdbcLevel());
+                    restoring = restoring.withIsolation(Isolation.ofJdbcLevel(isolationLevel));
+                }
+            }
+
+            return restoring;
+        }
+        catch (Throwable e) {
+            logger.error("Exception occured during transaction options applying: " + options);
+            logger.error("", e);
+            try {
+                connection.setAutoCommit(true);
+                connection.close();
+            }
+            catch (Throwable closeException) {
+                logger.error("cannot close connection: ", closeException);
+            }
+            throw new JdbcException(e);
+        }
+    }
+
+    Connection autoCommittableConnection() {
         try {
             Connection connection = connectionsSource.getConnection();
             if ( ! connection.getAutoCommit() ) {
@@ -255,6 +526,15 @@ public class JdbcImpl implements Jdbc {
         }
     }
 
+    ReadingConnection readingConnection() {
+        try {
+            return new ReadingConnection(connectionsSource.getConnection());
+        }
+        catch (SQLException e) {
+            throw new JdbcException(e);
+        }
+    }
+
     private Connection transactionConnection() {
         try {
             Connection connection = connectionsSource.getConnection();
@@ -269,6 +549,11 @@ public class JdbcImpl implements Jdbc {
     }
 
     public void close() {
+        if ( nonNull(this.watchdog) ) {
+            this.watchdog.close();
+        }
+        this.async.close();
+        this.resources.close();
         this.connectionsSource.close();
         logger.info("closed.");
     }
@@ -277,6 +562,7 @@ public class JdbcImpl implements Jdbc {
     public int countQueryResults(String sql) {
         try (var connection = this.autoCommittableConnection();
              var statement = connection.createStatement();
+             var running = this.runningStatements.register(statement);
              var resultSet = statement.executeQuery(sql);) {
 
             int resultingRowsQty = this.count(resultSet);
@@ -304,6 +590,7 @@ public class JdbcImpl implements Jdbc {
     private int countQueryResultsStreamed(String sql, Stream params)   {
         try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();) {
 
@@ -321,7 +608,7 @@ public class JdbcImpl implements Jdbc {
 
     private int count(ResultSet rs) throws SQLException {
         int count = 0;
-        while ( rs.next() ) {
+        while ( nextRowIfNotInterrupted(rs) ) {
             count++;
         }
         return count;
@@ -337,14 +624,17 @@ public class JdbcImpl implements Jdbc {
     public void doQuery(RowOperation operation, String sql) {
         try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps);
              var rs = ps.executeQuery();) {
 
             Row row = this.wrapResultSetIntoRow(rs);
 
             whenRowsIterationAwareDoBefore(operation);
 
-            while ( rs.next() ) {
-                operation.process(row);
+            while ( nextRowIfNotInterrupted(rs) ) {
+                if ( ! processAndProceed(operation, row) ) {
+                    break;
+                }
             }
 
             whenRowsIterationAwareDoAfter(operation);
@@ -370,6 +660,7 @@ public class JdbcImpl implements Jdbc {
     private void doQueryStreamed(RowOperation operation, String sql, Stream params) {
         try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();) {
 
@@ -377,8 +668,10 @@ public class JdbcImpl implements Jdbc {
 
             Row row = this.wrapResultSetIntoRow(rs);
 
-            while ( rs.next() ) {
-                operation.process(row);
+            while ( nextRowIfNotInterrupted(rs) ) {
+                if ( ! processAndProceed(operation, row) ) {
+                    break;
+                }
             }
 
             whenRowsIterationAwareDoAfter(operation);
@@ -391,16 +684,161 @@ public class JdbcImpl implements Jdbc {
         }
     }
 
+    @Override
+    public void doQueryPipelined(RowOperation operation, int depth, String sql, List params) {
+        this.doQueryPipelinedStreamed(operation, depth, sql, params.stream());
+    }
+
+    @Override
+    public void doQueryPipelined(RowOperation operation, int depth, String sql, Object... params) {
+        this.doQueryPipelinedStreamed(operation, depth, sql, stream(params));
+    }
+
+    private void doQueryPipelinedStreamed(RowOperation operation, int depth, String sql, Stream params) {
+        mustBeValidDepth(depth);
+
+        try (var connection = this.autoCommittableConnection();
+             var ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps);
+             var stub = this.resources.paramsSetter.setParameters(ps, params);
+             var rs = ps.executeQuery();) {
+
+            whenRowsIterationAwareDoBefore(operation);
+
+            PipelinedRowsIteration.iterate(
+                    rs,
+                    operation,
+                    depth,
+                    this.resources.rowsReaders(),
+                    this.resources.sqlTypeToJavaTypeConverter,
+                    () -> false);
+
+            whenRowsIterationAwareDoAfter(operation);
+        }
+        catch (Throwable e) {
+            logger.error("Exception occured during query: ");
+            logger.error(sql);
+            logger.error("", e);
+            throw new JdbcException(e);
+        }
+    }
+
+    @Override
+    public void doQueryParallel(RowOperation operation, int parallelism, String sql, List params) {
+        this.doQueryParallelStreamed(operation, parallelism, sql, params.stream());
+    }
+
+    @Override
+    public void doQueryParallel(RowOperation operation, int parallelism, String sql, Object... params) {
+        this.doQueryParallelStreamed(operation, parallelism, sql, stream(params));
+    }
+
+    private void doQueryParallelStreamed(RowOperation operation, int parallelism, String sql, Stream params) {
+        mustBeValidParallelism(parallelism);
+
+        try (var connection = this.autoCommittableConnection();
+             var ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps);
+             var stub = this.resources.paramsSetter.setParameters(ps, params);
+             var rs = ps.executeQuery();) {
+
+            whenRowsIterationAwareDoBefore(operation);
+
+            ParallelRowsProcessing.process(
+                    rs,
+                    operation,
+                    this.resources.parallelRowsPool(parallelism),
+                    RowsIteration::nextRowIfNotInterrupted,
+                    this.resources.sqlTypeToJavaTypeConverter);
+
+            whenRowsIterationAwareDoAfter(operation);
+        }
+        catch (Throwable e) {
+            logger.error("Exception occured during query: ");
+            logger.error(sql);
+            logger.error("", e);
+            throw new JdbcException(e);
+        }
+    }
+
+    @Override
+    public <T> List<T> doQueryParallelAndConvert(RowGetter<T> conversion, int parallelism, String sql, List params) {
+        return this.doQueryParallelAndConvertStreamed(conversion, parallelism, sql, params.stream());
+    }
+
+    @Override
+    public <T> List<T> doQueryParallelAndConvert(RowGetter<T> conversion, int parallelism, String sql, Object... params) {
+        return this.doQueryParallelAndConvertStreamed(conversion, parallelism, sql, stream(params));
+    }
+
+    private <T> List<T> doQueryParallelAndConvertStreamed(RowGetter<T> conversion, int parallelism, String sql, Stream params) {
+        mustBeValidParallelism(parallelism);
+
+        try (var connection = this.autoCommittableConnection();
+             var ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps);
+             var stub = this.resources.paramsSetter.setParameters(ps, params);
+             var rs = ps.executeQuery();) {
+
+            return ParallelRowsProcessing.convert(
+                    rs,
+                    conversion,
+                    this.resources.parallelRowsPool(parallelism),
+                    RowsIteration::nextRowIfNotInterrupted,
+                    this.resources.sqlTypeToJavaTypeConverter);
+        }
+        catch (Throwable e) {
+            logger.error("Exception occured during query: ");
+            logger.error(sql);
+            logger.error("", e);
+            throw new JdbcException(e);
+        }
+    }
+
+    @Override
+    public void doQueryInBlocks(RowBlockOperation operation, int blockSize, String sql, List params) {
+        this.doQueryInBlocksStreamed(operation, blockSize, sql, params.stream());
+    }
+
+    @Override
+    public void doQueryInBlocks(RowBlockOperation operation, int blockSize, String sql, Object... params) {
+        this.doQueryInBlocksStreamed(operation, blockSize, sql, stream(params));
+    }
+
+    private void doQueryInBlocksStreamed(RowBlockOperation operation, int blockSize, String sql, Stream params) {
+        mustBeValidBlockSize(blockSize);
+
+        try (var connection = this.autoCommittableConnection();
+             var ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps);
+             var stub = this.resources.paramsSetter.setParameters(ps, params);
+             var rs = ps.executeQuery();) {
+
+            ColumnarRowBlock block = ColumnarRowBlock.allocate(rs, blockSize);
+
+            while ( block.fillFrom(rs, RowsIteration::nextRowIfNotInterrupted) ) {
+                operation.process(block);
+            }
+        }
+        catch (Exception e) {
+            logger.error("Exception occured during query: ");
+            logger.error(sql);
+            logger.error("", e);
+            throw new JdbcException(e);
+        }
+    }
+
     @Override
     public <T> Stream<T> doQueryAndStream(RowGetter<T> conversion, String sql) {
         try (var connection = this.autoCommittableConnection();
              var st = connection.createStatement();
+             var running = this.runningStatements.register(st);
              var rs = st.executeQuery(sql);) {
 
             Row row = this.wrapResultSetIntoRow(rs);
 
             Stream.Builder<T> builder = Stream.builder();
-            while ( rs.next() ) {
+            while ( nextRowIfNotInterrupted(rs) ) {
                 builder.accept(conversion.getFrom(row));
             }
 
@@ -425,16 +863,16 @@ public class JdbcImpl implements Jdbc {
     }
 
     private <T> Stream<T> doQueryAndStreamStreamed(RowGetter<T> conversion, String sql, Stream params) {
-        try (Connection connection = this.autoCommittableConnection()) {
-            PreparedStatement ps = connection.prepareStatement(sql);
+        try (Connection connection = this.autoCommittableConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps)) {
             this.resources.paramsSetter.setParameters(ps, params);
             ResultSet rs = ps.executeQuery();
             Row row = this.wrapResultSetIntoRow(rs);
             Stream.Builder<T> builder = Stream.builder();
-            while ( rs.next() ) {
+            while ( nextRowIfNotInterrupted(rs) ) {
                 builder.accept(conversion.getFrom(row));
             }
-            ps.close();
             rs.close();
             return builder.build();
         }
@@ -474,6 +912,7 @@ public class JdbcImpl implements Jdbc {
     public void doQueryAndProcessFirstRow(RowOperation operation, String sql) {
         try (var connection = this.autoCommittableConnection();
              var st = connection.createStatement();
+             var running = this.runningStatements.register(st);
              var rs = st.executeQuery(sql);) {
 
             whenRowsIterationAwareDoBefore(operation);
@@ -505,6 +944,7 @@ public class JdbcImpl implements Jdbc {
     private void doQueryAndProcessFirstRowStreamed(RowOperation operation, String sql, Stream params) {
         try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps);
              var stub = this.resources.paramsSetter.setParameters(ps, params);) {
 
             whenRowsIterationAwareDoBefore(operation);
@@ -528,6 +968,7 @@ public class JdbcImpl implements Jdbc {
     public <T> Optional<T> doQueryAndConvertFirstRow(RowGetter<T> conversion, String sql) {
         try (var connection = this.autoCommittableConnection();
              var st = connection.createStatement();
+             var running = this.runningStatements.register(st);
              var rs = st.executeQuery(sql);) {
 
             Optional<T> optional;
@@ -562,6 +1003,7 @@ public class JdbcImpl implements Jdbc {
     private <T> Optional<T> doQueryAndConvertFirstRowStreamed(RowGetter<T> conversion, String sql, Stream params) {
         try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(sql);
+             var running = this.runningStatements.register(ps);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();) {
 
@@ -586,7 +1028,8 @@ public class JdbcImpl implements Jdbc {
     @Override
     public int doUpdate(String updateSql) {
         try (var connection = this.autoCommittableConnection();
-             var statement = connection.createStatement()) {
+             var statement = connection.createStatement();
+             var running = this.runningStatements.register(statement)) {
 
             int x = statement.executeUpdate(updateSql);
             return x;
@@ -610,6 +1053,7 @@ public class JdbcImpl implements Jdbc {
     public <T> int doUpdate(String updateSql, ParamsApplier<T> paramsFromT, T t) {
         try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(updateSql);
+             var running = this.runningStatements.register(ps);
              var params = this.resources.paramsPool.give()) {
 
             params.useWith(ps);
@@ -630,7 +1074,8 @@ public class JdbcImpl implements Jdbc {
     @Override
     public <K> List<K> doUpdateAndGetKeys(String updateSql, Class<K> keyType) {
         try (var connection = this.autoCommittableConnection();
-             var ps = connection.prepareStatement(updateSql, RETURN_GENERATED_KEYS)) {
+             var ps = connection.prepareStatement(updateSql, RETURN_GENERATED_KEYS);
+             var running = this.runningStatements.register(ps)) {
 
             ps.executeUpdate();
 
@@ -657,6 +1102,7 @@ public class JdbcImpl implements Jdbc {
     public <K> List<K> doUpdateAndGetKeys(String updateSql, Class<K> keyType, Object... params) {
         try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(updateSql, RETURN_GENERATED_KEYS);
+             var running = this.runningStatements.register(ps);
              var stub = this.resources.paramsSetter.setParameters(ps, params)) {
 
             ps.executeUpdate();
@@ -684,6 +1130,7 @@ public class JdbcImpl implements Jdbc {
     public <K> List<K> doUpdateAndGetKeys(String updateSql, Class<K> keyType, List params) {
         try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(updateSql, RETURN_GENERATED_KEYS);
+             var running = this.runningStatements.register(ps);
              var stub = this.resources.paramsSetter.setParameters(ps, params)) {
 
             ps.executeUpdate();
@@ -713,12 +1160,12 @@ public class JdbcImpl implements Jdbc {
     }
 
     private int doUpdateStreamed(String updateSql, Stream params) {
-        try (var connection = this.autoCommittableConnection()) {
-
+        try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(updateSql);
+             var running = this.runningStatements.register(ps)) {
+
             this.resources.paramsSetter.setParameters(ps, params);
             int x = ps.executeUpdate();
-            ps.close();
             return x;
         }
         catch (Exception e) {
@@ -737,14 +1184,14 @@ public class JdbcImpl implements Jdbc {
 
         this.paramsMustHaveEqualQty(batchParams, updateSql);
 
-        try (Connection connection = this.autoCommittableConnection()) {
-            PreparedStatement ps = connection.prepareStatement(updateSql);
+        try (Connection connection = this.autoCommittableConnection();
+             PreparedStatement ps = connection.prepareStatement(updateSql);
+             var running = this.runningStatements.register(ps)) {
             for (List list : batchParams) {
                 this.resources.paramsSetter.setParameters(ps, list);
                 ps.addBatch();
             }
             int[] x = ps.executeBatch();
-            ps.close();
             return x;
         }
         catch (Exception e) {
@@ -798,6 +1245,7 @@ public class JdbcImpl implements Jdbc {
 
         try (var connection = this.autoCommittableConnection();
              var ps = connection.prepareStatement(updateSql);
+             var running = this.runningStatements.register(ps);
              var params = this.resources.paramsPool.give()) {
 
             params.useWith(ps);
@@ -823,9 +1271,11 @@ public class JdbcImpl implements Jdbc {
         }
     }
 
-    private Row wrapResultSetIntoRow(ResultSet rs) {
+    Row wrapResultSetIntoRow(ResultSet rs) {
         return new Row() {
 
+            private RowSnapshot.Columns snapshotColumns;
+
             @Override
             public Object get(String columnLabel) throws JdbcException {
                 try {
@@ -872,6 +1322,21 @@ public class JdbcImpl implements Jdbc {
                     throw new JdbcException(ex);
                 }
             }
+
+            @Override
+            public Row snapshot() {
+                try {
+                    if ( isNull(this.snapshotColumns) ) {
+                        this.snapshotColumns = RowSnapshot.Columns.of(
+                                rs, JdbcImpl.this.resources.sqlTypeToJavaTypeConverter);
+                    }
+                    return this.snapshotColumns.copyCurrentRow(rs);
+                }
+                catch (Exception ex) {
+                    logger.error("Exception occured during Row snapshot: ", ex);
+                    throw new JdbcException(ex);
+                }
+            }
         };
     }
     
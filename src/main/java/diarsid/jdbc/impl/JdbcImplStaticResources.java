@@ -1,17 +1,74 @@
 package diarsid.jdbc.impl;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import diarsid.jdbc.impl.conversion.sql2java.SqlTypeToJavaTypeConverter;
 import diarsid.support.objects.GuardedPool;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
 public final class JdbcImplStaticResources {
 
     public final JdbcPreparedStatementSetter paramsSetter;
     public final SqlTypeToJavaTypeConverter sqlTypeToJavaTypeConverter;
     public final GuardedPool<StatementParams> paramsPool;
+    /* created on first use, as most applications never read rows in background */
+    private volatile ExecutorService rowsReaders;
+    private final Map<Integer, ForkJoinPool> parallelRowsPools;
+    private final int maxParallelism;
 
     public JdbcImplStaticResources(JdbcPreparedStatementSetter paramsSetter, SqlTypeToJavaTypeConverter sqlTypeToJavaTypeConverter) {
         this.paramsSetter = paramsSetter;
         this.sqlTypeToJavaTypeConverter = sqlTypeToJavaTypeConverter;
         this.paramsPool = new GuardedPool<>(() -> new StatementParams(paramsSetter));
+        this.rowsReaders = null;
+
+        this.parallelRowsPools = new ConcurrentHashMap<>();
+        this.maxParallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    public ExecutorService rowsReaders() {
+        ExecutorService readers = this.rowsReaders;
+
+        if ( isNull(readers) ) {
+            synchronized ( this ) {
+                readers = this.rowsReaders;
+                if ( isNull(readers) ) {
+                    AtomicInteger readersCounter = new AtomicInteger();
+                    readers = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "jdbc-rows-reader-" + readersCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    this.rowsReaders = readers;
+                }
+            }
+        }
+
+        return readers;
+    }
+
+    /*
+     * Parallelism is capped by available processors, so that there are not more
+     * pools than processors, whatever parallelism is requested by callers.
+     */
+    public ForkJoinPool parallelRowsPool(int parallelism) {
+        int cappedParallelism = Math.min(parallelism, this.maxParallelism);
+        return this.parallelRowsPools.computeIfAbsent(cappedParallelism, ForkJoinPool::new);
+    }
+
+    public void close() {
+        synchronized ( this ) {
+            if ( nonNull(this.rowsReaders) ) {
+                this.rowsReaders.shutdownNow();
+            }
+        }
+        this.parallelRowsPools.values().forEach(ForkJoinPool::shutdownNow);
     }
 }
@@ -2,12 +2,19 @@ package diarsid.jdbc.impl;
 
 import diarsid.jdbc.api.JdbcTransaction;
 import diarsid.jdbc.api.JdbcTransactionThreadBinding;
+import diarsid.jdbc.api.TransactionOptions;
+import diarsid.jdbc.impl.transaction.JdbcTransactionReal;
 
 public interface JdbcTransactionThreadBindingControl extends JdbcTransactionThreadBinding {
 
+    /* single thread-local lookup instead of isBound() and currentTransaction() pair */
+    JdbcTransactionReal currentTransactionOrNull();
+
     void unbind();
 
     void bindNew();
 
+    void bindNew(TransactionOptions options);
+
     void bindExisting(JdbcTransaction transaction);
 }
@@ -3,9 +3,10 @@ package diarsid.jdbc.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import diarsid.jdbc.api.Jdbc;
 import diarsid.jdbc.api.JdbcTransaction;
 import diarsid.jdbc.api.ThreadBoundJdbcTransaction;
+import diarsid.jdbc.api.TransactionContext;
+import diarsid.jdbc.api.TransactionOptions;
 import diarsid.jdbc.api.exceptions.ForbiddenTransactionOperation;
 import diarsid.jdbc.api.exceptions.JdbcException;
 import diarsid.jdbc.impl.transaction.JdbcTransactionReal;
@@ -18,15 +19,16 @@ import static diarsid.jdbc.api.JdbcTransaction.State.CLOSED_ROLLBACKED;
 import static diarsid.jdbc.api.JdbcTransaction.State.FAILED;
 import static diarsid.jdbc.api.JdbcTransaction.State.OPEN;
 import static diarsid.jdbc.api.JdbcTransaction.ThenDo.CLOSE;
+import static diarsid.jdbc.api.TransactionOptions.DEFAULT;
 
 public class JdbcTransactionThreadBindingControlImpl implements JdbcTransactionThreadBindingControl {
 
     private static final Logger log = LoggerFactory.getLogger(JdbcTransactionThreadBindingControlImpl.class);
 
     private final ThreadLocal<JdbcTransactionReal> threadJdbcTransactions;
-    private final Jdbc jdbc;
+    private final JdbcImpl jdbc;
 
-    public JdbcTransactionThreadBindingControlImpl(Jdbc jdbc) {
+    public JdbcTransactionThreadBindingControlImpl(JdbcImpl jdbc) {
         this.jdbc = jdbc;
         this.threadJdbcTransactions = new ThreadLocal<>();
     }
@@ -66,6 +68,22 @@ public class JdbcTransactionThreadBindingControlImpl implements JdbcTransactionT
         return transaction;
     }
 
+    @Override
+    public TransactionContext captureCurrent() {
+        JdbcTransactionReal transaction = threadJdbcTransactions.get();
+
+        if ( isNull(transaction) ) {
+            throw new JdbcException("There is no open transaction!");
+        }
+
+        return new CapturedTransactionContext(transaction, this);
+    }
+
+    @Override
+    public JdbcTransactionReal currentTransactionOrNull() {
+        return threadJdbcTransactions.get();
+    }
+
     @Override
     public void unbind() {
         threadJdbcTransactions.remove();
@@ -73,7 +91,13 @@ public class JdbcTransactionThreadBindingControlImpl implements JdbcTransactionT
 
     @Override
     public void bindNew() {
-        JdbcTransactionReal transaction = (JdbcTransactionReal) jdbc.createTransaction();
+        JdbcTransactionReal transaction = (JdbcTransactionReal) jdbc.createTransaction(DEFAULT, true);
+        threadJdbcTransactions.set(transaction);
+    }
+
+    @Override
+    public void bindNew(TransactionOptions options) {
+        JdbcTransactionReal transaction = (JdbcTransactionReal) jdbc.createTransaction(options, true);
         threadJdbcTransactions.set(transaction);
     }
 
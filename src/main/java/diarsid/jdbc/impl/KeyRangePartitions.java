@@ -0,0 +1,184 @@
+package diarsid.jdbc.impl;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.exceptions.OperationCancelledException;
+import diarsid.jdbc.api.sqltable.rows.RowOperation;
+import diarsid.jdbc.api.sqltable.rows.StoppableRowOperation;
+
+import static java.lang.String.format;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.isNull;
+
+import static diarsid.jdbc.impl.SqlIdentifiers.mustBeIdentifier;
+
+/*
+ * Splits table into ranges of integer key column between its MIN and MAX, so that
+ * every range can be read by separate query with its own connection. The first and
+ * the last ranges are open, so that rows are not lost if key column is not strictly
+ * integer. Rows having NULL key are not read. Ranges have equal key spans, so that
+ * they are balanced only if keys are distributed evenly.
+ */
+class KeyRangePartitions {
+
+    static final int FETCH_SIZE = 128;
+
+    private final JdbcImpl jdbc;
+    private final List<ScatterGather.Source> sources;
+
+    KeyRangePartitions(JdbcImpl jdbc, String table, String keyColumn, int parallelism) {
+        mustBeIdentifier(table);
+        mustBeIdentifier(keyColumn);
+        ParallelRowsProcessing.mustBeValidParallelism(parallelism);
+
+        this.jdbc = jdbc;
+        this.sources = this.split(table, keyColumn, parallelism);
+    }
+
+    private static long integerKey(Object key) {
+        if ( ! (key instanceof Number) ) {
+            throw new JdbcException(format("Key column must be numeric, but is %s!", key.getClass().getSimpleName()));
+        }
+
+        return ((Number) key).longValue();
+    }
+
+    private List<ScatterGather.Source> split(String table, String keyColumn, int parallelism) {
+        String minMaxSql = format("SELECT MIN(%s) AS min_key, MAX(%s) AS max_key FROM %s", keyColumn, keyColumn, table);
+
+        Optional<long[]> minMax = this.jdbc.doQueryAndConvertFirstRow(
+                row -> {
+                    Object min = row.get("min_key");
+                    Object max = row.get("max_key");
+                    if ( isNull(min) || isNull(max) ) {
+                        return null;
+                    }
+                    return new long[] { integerKey(min), integerKey(max) };
+                },
+                minMaxSql);
+
+        if ( minMax.isEmpty() ) {
+            return emptyList();
+        }
+
+        BigInteger min = BigInteger.valueOf(minMax.get()[0]);
+        BigInteger span = BigInteger.valueOf(minMax.get()[1]).subtract(min);
+        BigInteger partitions = BigInteger.valueOf(parallelism);
+
+        TreeSet<Long> bounds = new TreeSet<>();
+        for ( int i = 1; i < parallelism; i++ ) {
+            BigInteger bound = min.add(span.multiply(BigInteger.valueOf(i)).divide(partitions));
+            if ( bound.compareTo(min) > 0 ) {
+                bounds.add(bound.longValueExact());
+            }
+        }
+
+        String select = format("SELECT * FROM %s WHERE ", table);
+        List<ScatterGather.Source> sources = new ArrayList<>();
+
+        if ( bounds.isEmpty() ) {
+            sources.add(new ScatterGather.Source(this.jdbc, select + keyColumn + " IS NOT NULL", emptyList()));
+            return sources;
+        }
+
+        Long lower = null;
+        for ( Long upper : bounds ) {
+            if ( isNull(lower) ) {
+                sources.add(new ScatterGather.Source(
+                        this.jdbc, select + keyColumn + " < ?", List.of(upper)));
+            }
+            else {
+                sources.add(new ScatterGather.Source(
+                        this.jdbc, select + keyColumn + " >= ? AND " + keyColumn + " < ?", List.of(lower, upper)));
+            }
+            lower = upper;
+        }
+        sources.add(new ScatterGather.Source(this.jdbc, select + keyColumn + " >= ?", List.of(lower)));
+
+        return sources;
+    }
+
+    List<ScatterGather.Source> sources() {
+        return this.sources;
+    }
+
+    /*
+     * Hides RowsIterationAware from queries of ranges, it is notified once for all of them.
+     * Stop of StoppableRowOperation is shared, so that when it stops in one range, readers
+     * of all other ranges stop on their next row too.
+     */
+    private static RowOperation rangeOperation(RowOperation operation) {
+        if ( operation instanceof StoppableRowOperation ) {
+            StoppableRowOperation stoppable = (StoppableRowOperation) operation;
+            AtomicBoolean stopped = new AtomicBoolean(false);
+            return (StoppableRowOperation) row -> {
+                if ( stopped.get() ) {
+                    return false;
+                }
+
+                if ( ! stoppable.processAndProceed(row) ) {
+                    stopped.set(true);
+                    return false;
+                }
+
+                return true;
+            };
+        }
+
+        return operation::process;
+    }
+
+    /*
+     * Operation is called concurrently by threads reading different ranges. If reading
+     * of any range fails, the other ones are interrupted and the first failure is thrown.
+     */
+    void process(RowOperation operation, ExecutorService executor) {
+        RowOperation rangeOperation = rangeOperation(operation);
+
+        List<Future<?>> readings = new ArrayList<>();
+        for ( ScatterGather.Source source : this.sources ) {
+            readings.add(executor.submit(() -> this.jdbc.doQuery(rangeOperation, source.sql, source.params)));
+        }
+
+        Throwable failure = null;
+        for ( Future<?> reading : readings ) {
+            try {
+                reading.get();
+            }
+            catch (ExecutionException e) {
+                if ( isNull(failure) ) {
+                    failure = e.getCause();
+                    readings.forEach(otherReading -> otherReading.cancel(true));
+                }
+            }
+            catch (CancellationException e) {
+                // cancelled because of other failure
+            }
+            catch (InterruptedException e) {
+                readings.forEach(otherReading -> otherReading.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new OperationCancelledException("Partitioned query is stopped - thread is interrupted!");
+            }
+        }
+
+        if ( failure instanceof JdbcException ) {
+            throw (JdbcException) failure;
+        }
+        else if ( failure instanceof Error ) {
+            throw (Error) failure;
+        }
+        else if ( failure != null ) {
+            throw new JdbcException(failure);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package diarsid.jdbc.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import diarsid.jdbc.api.JdbcOperations;
+import diarsid.jdbc.api.Keyset;
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+
+import static diarsid.jdbc.api.Keyset.Order.DESCENDING;
+
+/*
+ * Every page is read by separate query, which wraps given query as a subquery,
+ * orders it by key columns and continues after key of the last row of previous
+ * page instead of OFFSET, e.g. for keys (a, b):
+ *   SELECT * FROM ( <query> ) keyset_page
+ *   WHERE (a > ?) OR (a = ? AND b > ?)
+ *   ORDER BY a, b
+ *   LIMIT <page size>
+ * Next page is not read until previous one is taken, and no cursor is kept open
+ * between pages. Page that is shorter than page size is the last one. Comparison
+ * with NULL is never true, so NULL key of the last row of page is rejected instead
+ * of silently ending iteration.
+ */
+public class KeysetPages<T> implements Iterator<List<T>> {
+
+    private final JdbcOperations operations;
+    private final RowGetter<T> conversion;
+    private final Keyset keyset;
+    private final int pageSize;
+    private final String sql;
+    private final List params;
+    private final String firstPageSql;
+    private final String nextPageSql;
+    private Object[] lastKey;
+    private List<T> next;
+    private boolean lastPageRead;
+
+    public KeysetPages(
+            JdbcOperations operations,
+            RowGetter<T> conversion,
+            Keyset keyset,
+            int pageSize,
+            String sql,
+            List params) {
+        if ( pageSize < 1 ) {
+            throw new JdbcException("Page size must be positive!");
+        }
+
+        keyset.columns().forEach(SqlIdentifiers::mustBeIdentifier);
+
+        this.operations = operations;
+        this.conversion = conversion;
+        this.keyset = keyset;
+        this.pageSize = pageSize;
+        this.sql = sql;
+        this.params = params;
+        this.firstPageSql = this.pageSql(false);
+        this.nextPageSql = this.pageSql(true);
+        this.lastKey = null;
+        this.next = null;
+        this.lastPageRead = false;
+    }
+
+    private String pageSql(boolean afterLastKey) {
+        List<String> columns = this.keyset.columns();
+        boolean descending = this.keyset.order().equalTo(DESCENDING);
+        String comparison = descending ? " < ?" : " > ?";
+
+        StringBuilder pageSql = new StringBuilder("SELECT * FROM ( ")
+                .append(this.sql)
+                .append(" ) keyset_page");
+
+        if ( afterLastKey ) {
+            pageSql.append(" WHERE ");
+            for ( int i = 0; i < columns.size(); i++ ) {
+                if ( i > 0 ) {
+                    pageSql.append(" OR ");
+                }
+                pageSql.append("(");
+                for ( int j = 0; j < i; j++ ) {
+                    pageSql.append(columns.get(j)).append(" = ? AND ");
+                }
+                pageSql.append(columns.get(i)).append(comparison).append(")");
+            }
+        }
+
+        pageSql.append(" ORDER BY ");
+        for ( int i = 0; i < columns.size(); i++ ) {
+            if ( i > 0 ) {
+                pageSql.append(", ");
+            }
+            pageSql.append(columns.get(i));
+            if ( descending ) {
+                pageSql.append(" DESC");
+            }
+        }
+
+        pageSql.append(" LIMIT ").append(this.pageSize);
+
+        return pageSql.toString();
+    }
+
+    private List<Object> nextPageParams() {
+        for ( int i = 0; i < this.lastKey.length; i++ ) {
+            if ( isNull(this.lastKey[i]) ) {
+                throw new JdbcException(format(
+                        "Key column '%s' of the last row of previous page is NULL, next page cannot be read after it!",
+                        this.keyset.columns().get(i)));
+            }
+        }
+
+        List<Object> pageParams = new ArrayList<>(this.params);
+
+        for ( int i = 0; i < this.lastKey.length; i++ ) {
+            for ( int j = 0; j <= i; j++ ) {
+                pageParams.add(this.lastKey[j]);
+            }
+        }
+
+        return pageParams;
+    }
+
+    private List<T> readPage() {
+        List<T> page = new ArrayList<>(this.pageSize);
+        List<String> columns = this.keyset.columns();
+        Object[] pageLastKey = new Object[columns.size()];
+
+        boolean isFirstPage = isNull(this.lastKey);
+        String pageSql = isFirstPage ? this.firstPageSql : this.nextPageSql;
+        List pageParams = isFirstPage ? this.params : this.nextPageParams();
+
+        this.operations.doQuery(
+                row -> {
+                    page.add(this.conversion.getFrom(row));
+                    for ( int i = 0; i < pageLastKey.length; i++ ) {
+                        pageLastKey[i] = row.get(columns.get(i));
+                    }
+                },
+                pageSql,
+                pageParams);
+
+        this.lastKey = pageLastKey;
+        this.lastPageRead = page.size() < this.pageSize;
+
+        return page;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( nonNull(this.next) ) {
+            return true;
+        }
+
+        if ( this.lastPageRead ) {
+            return false;
+        }
+
+        List<T> page = this.readPage();
+        if ( page.isEmpty() ) {
+            return false;
+        }
+
+        this.next = page;
+        return true;
+    }
+
+    @Override
+    public List<T> next() {
+        if ( ! this.hasNext() ) {
+            throw new NoSuchElementException();
+        }
+
+        List<T> page = this.next;
+        this.next = null;
+        return page;
+    }
+
+    public Stream<List<T>> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, ORDERED | NONNULL), false);
+    }
+}
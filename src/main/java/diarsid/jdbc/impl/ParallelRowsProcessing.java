@@ -0,0 +1,172 @@
+package diarsid.jdbc.impl;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.exceptions.OperationCancelledException;
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+import diarsid.jdbc.api.sqltable.rows.RowOperation;
+import diarsid.jdbc.impl.conversion.sql2java.SqlTypeToJavaTypeConverter;
+
+import static java.util.Objects.nonNull;
+
+import static diarsid.jdbc.impl.RowsIteration.processAndProceed;
+
+/*
+ * Calling thread is the only one that uses ResultSet: it copies rows into
+ * RowSnapshots and submits them in batches to ForkJoinPool, where they are
+ * processed or converted concurrently. Number of submitted but not yet
+ * processed batches is limited, so that reading waits for slow processing.
+ * Processing does not return until all submitted batches are done, so that
+ * operation is never called after query method has returned.
+ */
+public class ParallelRowsProcessing<T> {
+
+    private static final int BATCH_SIZE = 64;
+    private static final int BATCHES_IN_FLIGHT_PER_THREAD = 2;
+
+    private final ForkJoinPool pool;
+    private final Semaphore inFlight;
+    private final AtomicReference<Throwable> failure;
+    private final AtomicBoolean stopped;
+    private final List<ForkJoinTask<List<T>>> batches;
+
+    private ParallelRowsProcessing(ForkJoinPool pool) {
+        this.pool = pool;
+        this.inFlight = new Semaphore(pool.getParallelism() * BATCHES_IN_FLIGHT_PER_THREAD);
+        this.failure = new AtomicReference<>();
+        this.stopped = new AtomicBoolean(false);
+        this.batches = new ArrayList<>();
+    }
+
+    public static void mustBeValidParallelism(int parallelism) {
+        if ( parallelism < 1 ) {
+            throw new JdbcException("Parallelism must be positive!");
+        }
+    }
+
+    public static void process(
+            ResultSet rs,
+            RowOperation operation,
+            ForkJoinPool pool,
+            RowsIteration.Cursor cursor,
+            SqlTypeToJavaTypeConverter converter) throws Throwable {
+        ParallelRowsProcessing<Object> processing = new ParallelRowsProcessing<>(pool);
+        processing.run(rs, cursor, converter, (batch, size) -> {
+            for ( int i = 0; i < size && ! processing.stopped.get(); i++ ) {
+                if ( ! processAndProceed(operation, batch[i]) ) {
+                    processing.stopped.set(true);
+                }
+            }
+            return null;
+        });
+    }
+
+    public static <T> List<T> convert(
+            ResultSet rs,
+            RowGetter<T> conversion,
+            ForkJoinPool pool,
+            RowsIteration.Cursor cursor,
+            SqlTypeToJavaTypeConverter converter) throws Throwable {
+        ParallelRowsProcessing<T> processing = new ParallelRowsProcessing<>(pool);
+        processing.run(rs, cursor, converter, (batch, size) -> {
+            List<T> converted = new ArrayList<>(size);
+            for ( int i = 0; i < size; i++ ) {
+                converted.add(conversion.getFrom(batch[i]));
+            }
+            return converted;
+        });
+
+        List<T> results = new ArrayList<>();
+        for ( ForkJoinTask<List<T>> batch : processing.batches ) {
+            results.addAll(batch.join());
+        }
+        return results;
+    }
+
+    @FunctionalInterface
+    private interface BatchProcessing<T> {
+
+        List<T> process(RowSnapshot[] batch, int size);
+    }
+
+    private void run(
+            ResultSet rs,
+            RowsIteration.Cursor cursor,
+            SqlTypeToJavaTypeConverter converter,
+            BatchProcessing<T> processing) throws Throwable {
+        try {
+            RowSnapshot.Columns columns = RowSnapshot.Columns.of(rs, converter);
+            RowSnapshot[] batch = new RowSnapshot[BATCH_SIZE];
+            int size = 0;
+
+            while ( this.canProceed() && cursor.next(rs) ) {
+                batch[size] = columns.copyCurrentRow(rs);
+                size++;
+
+                if ( size == BATCH_SIZE ) {
+                    this.submit(batch, size, processing);
+                    batch = new RowSnapshot[BATCH_SIZE];
+                    size = 0;
+                }
+            }
+
+            if ( size > 0 && this.canProceed() ) {
+                this.submit(batch, size, processing);
+            }
+        }
+        finally {
+            this.awaitSubmitted();
+        }
+
+        Throwable t = this.failure.get();
+        if ( nonNull(t) ) {
+            throw t;
+        }
+    }
+
+    private boolean canProceed() {
+        return ! this.stopped.get() && this.failure.get() == null;
+    }
+
+    private void submit(RowSnapshot[] batch, int size, BatchProcessing<T> processing) {
+        try {
+            this.inFlight.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationCancelledException("Rows iteration is stopped - thread is interrupted!");
+        }
+
+        this.batches.add(this.pool.submit(() -> {
+            try {
+                if ( this.canProceed() ) {
+                    return processing.process(batch, size);
+                }
+                else {
+                    return List.<T>of();
+                }
+            }
+            catch (Throwable t) {
+                this.failure.compareAndSet(null, t);
+                return List.<T>of();
+            }
+            finally {
+                this.inFlight.release();
+            }
+        }));
+    }
+
+    private void awaitSubmitted() {
+        for ( ForkJoinTask<List<T>> batch : this.batches ) {
+            batch.quietlyJoin();
+        }
+    }
+}
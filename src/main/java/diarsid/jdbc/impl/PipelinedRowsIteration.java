@@ -0,0 +1,163 @@
+package diarsid.jdbc.impl;
+
+import java.sql.ResultSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.exceptions.OperationCancelledException;
+import diarsid.jdbc.api.sqltable.rows.Row;
+import diarsid.jdbc.api.sqltable.rows.RowOperation;
+import diarsid.jdbc.impl.conversion.sql2java.SqlTypeToJavaTypeConverter;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static diarsid.jdbc.impl.RowsIteration.processAndProceed;
+
+/*
+ * Pipelined rows iteration. Reader thread moves ResultSet cursor and copies rows
+ * into RowSnapshots, which are put into bounded queue, while calling thread takes
+ * and processes them, so that fetching of next rows overlaps with processing of
+ * previous ones. Queue depth limits how far reader may go ahead: when queue is full
+ * reader waits for processing. ResultSet is used only by reader thread while
+ * iteration is in progress, and iterate() does not return until reader has stopped,
+ * so that caller can safely continue to use its statement and connection after it.
+ */
+public class PipelinedRowsIteration {
+
+    private static final Object END = new Object();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private static class Failure {
+
+        private final Throwable throwable;
+
+        private Failure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+
+    private static class Reader implements Runnable {
+
+        private final ResultSet rs;
+        private final SqlTypeToJavaTypeConverter converter;
+        private final BlockingQueue<Object> queue;
+        private final CountDownLatch finished;
+        private volatile boolean stopped;
+
+        private Reader(ResultSet rs, SqlTypeToJavaTypeConverter converter, int depth) {
+            this.rs = rs;
+            this.converter = converter;
+            this.queue = new ArrayBlockingQueue<>(depth);
+            this.finished = new CountDownLatch(1);
+            this.stopped = false;
+        }
+
+        @Override
+        public void run() {
+            try {
+                RowSnapshot.Columns columns = RowSnapshot.Columns.of(this.rs, this.converter);
+                while ( ! this.stopped && this.rs.next() ) {
+                    this.put(columns.copyCurrentRow(this.rs));
+                }
+            }
+            catch (Throwable t) {
+                if ( ! this.stopped ) {
+                    this.put(new Failure(t));
+                }
+            }
+            finally {
+                this.put(END);
+                this.finished.countDown();
+            }
+        }
+
+        private void put(Object item) {
+            try {
+                while ( ! this.stopped ) {
+                    if ( this.queue.offer(item, OFFER_TIMEOUT_MILLIS, MILLISECONDS) ) {
+                        return;
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private Object take() {
+            try {
+                return this.queue.take();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OperationCancelledException("Rows iteration is stopped - thread is interrupted!");
+            }
+        }
+
+        private void stopAndAwait() {
+            this.stopped = true;
+            this.queue.clear();
+
+            boolean interrupted = false;
+            while ( this.finished.getCount() > 0 ) {
+                try {
+                    this.finished.await();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if ( interrupted ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static void mustBeValidDepth(int depth) {
+        if ( depth < 1 ) {
+            throw new JdbcException("Pipelined query depth must be positive!");
+        }
+    }
+
+    public static void iterate(
+            ResultSet rs,
+            RowOperation operation,
+            int depth,
+            Executor readers,
+            SqlTypeToJavaTypeConverter converter,
+            BooleanSupplier cancelled) throws Throwable {
+        Reader reader = new Reader(rs, converter, depth);
+        readers.execute(reader);
+
+        try {
+            Object item;
+            while ( true ) {
+                if ( cancelled.getAsBoolean() ) {
+                    throw new OperationCancelledException("Rows iteration is cancelled!");
+                }
+
+                item = reader.take();
+
+                if ( item == END ) {
+                    break;
+                }
+
+                if ( item instanceof Failure ) {
+                    throw ((Failure) item).throwable;
+                }
+
+                if ( ! processAndProceed(operation, (Row) item) ) {
+                    break;
+                }
+            }
+        }
+        finally {
+            reader.stopAndAwait();
+        }
+    }
+}
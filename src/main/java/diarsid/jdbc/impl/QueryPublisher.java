@@ -0,0 +1,235 @@
+package diarsid.jdbc.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import diarsid.jdbc.api.sqltable.rows.Row;
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/*
+ * Every subscription executes query with its own connection, opened on the first
+ * request. Rows are fetched and converted only when subscriber has requested them,
+ * so that not more than one row is held at a time regardless of subscriber speed.
+ * Connection has autocommit disabled and fetch size follows outstanding demand, so
+ * that driver fetches rows by portions instead of reading whole result at once.
+ * Requests and cancellation only register demand and schedule draining on executor;
+ * draining is serialized by work-in-progress counter, so that ResultSet, statement
+ * and connection are used by one thread at a time and are closed by draining too.
+ * The only exception is cancellation, which also cancels statement from its thread
+ * to stop query that is executing at the moment.
+ */
+class QueryPublisher<T> implements Flow.Publisher<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPublisher.class);
+
+    private static final int MAX_FETCH_SIZE = 1000;
+
+    private final JdbcImpl jdbc;
+    private final Executor executor;
+    private final RowGetter<T> conversion;
+    private final String sql;
+    private final List params;
+
+    QueryPublisher(JdbcImpl jdbc, Executor executor, RowGetter<T> conversion, String sql, List params) {
+        this.jdbc = jdbc;
+        this.executor = executor;
+        this.conversion = conversion;
+        this.sql = sql;
+        this.params = params;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        requireNonNull(subscriber);
+        QuerySubscription subscription = new QuerySubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private class QuerySubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand;
+        private final AtomicInteger workInProgress;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean done;
+        private ReadingConnection connection;
+        /* volatile as it is cancelled by cancel() from other thread */
+        private volatile PreparedStatement statement;
+        private ResultSet rs;
+        private int fetchSize;
+        private Row row;
+
+        private QuerySubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            this.demand = new AtomicLong();
+            this.workInProgress = new AtomicInteger();
+            this.cancelled = false;
+            this.done = false;
+        }
+
+        @Override
+        public void request(long n) {
+            if ( n <= 0 ) {
+                this.invalidRequest = new IllegalArgumentException("Requested rows quantity must be positive!");
+            }
+            else {
+                this.demand.accumulateAndGet(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            this.scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+
+            PreparedStatement executing = this.statement;
+            if ( nonNull(executing) ) {
+                try {
+                    executing.cancel();
+                }
+                catch (Throwable t) {
+                    logger.debug("cannot cancel published query statement: ", t);
+                }
+            }
+
+            this.scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if ( this.workInProgress.getAndIncrement() == 0 ) {
+                try {
+                    executor.execute(this::drain);
+                }
+                catch (Throwable t) {
+                    this.cancelled = true;
+                    this.subscriber.onError(t);
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+
+            do {
+                this.drainDemanded();
+                missed = this.workInProgress.addAndGet(-missed);
+            }
+            while ( missed != 0 );
+        }
+
+        private void drainDemanded() {
+            if ( this.done ) {
+                return;
+            }
+
+            try {
+                while ( ! this.cancelled && isNull(this.invalidRequest) && this.demand.get() > 0 ) {
+                    if ( isNull(this.rs) ) {
+                        this.open();
+                        if ( this.cancelled ) {
+                            break;
+                        }
+                    }
+                    else {
+                        this.adjustFetchSize();
+                    }
+
+                    if ( ! RowsIteration.nextRowIfNotInterrupted(this.rs) ) {
+                        this.finish();
+                        this.subscriber.onComplete();
+                        return;
+                    }
+
+                    T t = conversion.getFrom(this.row);
+                    this.demand.decrementAndGet();
+                    this.subscriber.onNext(t);
+                }
+
+                if ( nonNull(this.invalidRequest) ) {
+                    this.finish();
+                    this.subscriber.onError(this.invalidRequest);
+                }
+                else if ( this.cancelled ) {
+                    this.finish();
+                }
+            }
+            catch (Throwable t) {
+                this.finish();
+                if ( this.cancelled ) {
+                    /* statement has been cancelled, subscriber is not interested in anything anymore */
+                    logger.debug("published query has been cancelled: ", t);
+                    return;
+                }
+                logger.error("Exception occurred during published query: ");
+                logger.error(sql);
+                logger.error("", t);
+                this.subscriber.onError(t);
+            }
+        }
+
+        private void open() throws Exception {
+            this.connection = jdbc.readingConnection();
+            this.statement = this.connection.connection().prepareStatement(sql);
+            if ( this.cancelled ) {
+                return;
+            }
+            jdbc.resources().paramsSetter.setParameters(this.statement, params).close();
+            this.fetchSize = fetchSizeFor(this.demand.get());
+            this.statement.setFetchSize(this.fetchSize);
+            this.rs = this.statement.executeQuery();
+            this.row = jdbc.wrapResultSetIntoRow(this.rs);
+        }
+
+        private void adjustFetchSize() throws Exception {
+            int demanded = fetchSizeFor(this.demand.get());
+            if ( demanded > this.fetchSize ) {
+                this.fetchSize = demanded;
+                this.rs.setFetchSize(demanded);
+            }
+        }
+
+        private void finish() {
+            this.done = true;
+            closeQuietly(this.rs);
+            closeQuietly(this.statement);
+            closeQuietly(this.connection);
+            this.rs = null;
+            this.statement = null;
+            this.connection = null;
+            this.row = null;
+        }
+    }
+
+    private static int fetchSizeFor(long demand) {
+        return (int) Math.min(demand, MAX_FETCH_SIZE);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if ( isNull(closeable) ) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        }
+        catch (Throwable t) {
+            logger.warn("cannot close: ", t);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package diarsid.jdbc.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+
+/*
+ * Connection for long streaming reads. Autocommit is disabled because most drivers
+ * honor fetch size only inside transaction (e.g. PostgreSQL uses cursor only when
+ * autocommit is off), so that rows are really fetched by portions. Nothing is written
+ * through it, so on close transaction is rolled back and connection is returned to
+ * source in its initial state.
+ */
+class ReadingConnection implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadingConnection.class);
+
+    private final Connection connection;
+    private final boolean wasReadOnly;
+
+    ReadingConnection(Connection connection) {
+        this.connection = connection;
+        try {
+            this.wasReadOnly = connection.isReadOnly();
+            if ( connection.getAutoCommit() ) {
+                connection.setAutoCommit(false);
+            }
+            if ( ! this.wasReadOnly ) {
+                connection.setReadOnly(true);
+            }
+        }
+        catch (SQLException e) {
+            this.restoreAndClose();
+            throw new JdbcException(e);
+        }
+    }
+
+    Connection connection() {
+        return this.connection;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.connection.rollback();
+        }
+        catch (Throwable e) {
+            logger.warn("cannot rollback reading connection: ", e);
+        }
+
+        this.restoreAndClose();
+    }
+
+    private void restoreAndClose() {
+        try {
+            this.connection.setAutoCommit(true);
+            if ( ! this.wasReadOnly ) {
+                this.connection.setReadOnly(false);
+            }
+        }
+        catch (Throwable e) {
+            logger.warn("cannot restore reading connection state: ", e);
+        }
+
+        try {
+            this.connection.close();
+        }
+        catch (Throwable e) {
+            logger.error("cannot close connection: ", e);
+        }
+    }
+}
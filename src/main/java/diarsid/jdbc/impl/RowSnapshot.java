@@ -0,0 +1,296 @@
+package diarsid.jdbc.impl;
+
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.sqltable.rows.Row;
+import diarsid.jdbc.api.sqltable.rows.RowBlock.ColumnKind;
+import diarsid.jdbc.impl.conversion.sql2java.SqlTypeToJavaTypeConverter;
+import diarsid.support.objects.CommonEnum;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+
+/*
+ * Detached immutable copy of one ResultSet row, which does not depend on ResultSet
+ * cursor and can be kept or processed by any thread after cursor has been moved.
+ * Column labels, types and positions are described by Columns shared by all rows of
+ * one query, while every row holds only values: columns are classified by ColumnKinds
+ * like in ColumnarRowBlock, so that signed integer values are packed into long[],
+ * floating point values into double[] and all other values are kept in Object[].
+ * Primitive values are boxed back on access into type that driver declares for
+ * ResultSet.getObject() by ResultSetMetaData.getColumnClassName(); if this type is
+ * not a matching primitive wrapper, column is kept in Object[] too. Blob and Clob
+ * values are read eagerly because they are not usable after cursor has been moved.
+ */
+public final class RowSnapshot implements Row {
+
+    /* wrapper type returned on access for values packed into long[] or double[] */
+    private enum Boxing implements CommonEnum<Boxing> {
+        BYTE,
+        SHORT,
+        INT,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        NONE;
+
+        private static Boxing ofClassName(String className) {
+            if ( isNull(className) ) {
+                return NONE;
+            }
+
+            switch ( className ) {
+                case "java.lang.Byte":
+                    return BYTE;
+                case "java.lang.Short":
+                    return SHORT;
+                case "java.lang.Integer":
+                    return INT;
+                case "java.lang.Long":
+                    return LONG;
+                case "java.lang.Float":
+                    return FLOAT;
+                case "java.lang.Double":
+                    return DOUBLE;
+                default:
+                    return NONE;
+            }
+        }
+
+        private boolean fits(ColumnKind kind) {
+            switch ( kind ) {
+                case LONG:
+                    return this.equalToAny(BYTE, SHORT, INT, LONG);
+                case DOUBLE:
+                    return this.equalToAny(FLOAT, DOUBLE);
+                default:
+                    return false;
+            }
+        }
+    }
+
+    public static final class Columns {
+
+        private final int count;
+        private final Map<String, Integer> indexes;
+        private final ColumnKind[] kinds;
+        private final Boxing[] boxings;
+        /* position of column value in long[], double[] or Object[] of row, depending on kind */
+        private final int[] slots;
+        private final int longsCount;
+        private final int doublesCount;
+        private final int objectsCount;
+        private final SqlTypeToJavaTypeConverter converter;
+
+        private Columns(ResultSetMetaData metaData, SqlTypeToJavaTypeConverter converter) throws SQLException {
+            this.count = metaData.getColumnCount();
+            this.indexes = new HashMap<>();
+            this.kinds = new ColumnKind[this.count];
+            this.boxings = new Boxing[this.count];
+            this.slots = new int[this.count];
+            this.converter = converter;
+
+            int longs = 0;
+            int doubles = 0;
+            int objects = 0;
+            String label;
+            for ( int i = 0; i < this.count; i++ ) {
+                label = metaData.getColumnLabel(i + 1);
+                this.indexes.putIfAbsent(label, i);
+                this.indexes.putIfAbsent(label.toLowerCase(), i);
+
+                this.kinds[i] = ColumnKinds.kindOf(metaData, i + 1);
+                this.boxings[i] = Boxing.NONE;
+                if ( this.kinds[i].notEqualTo(ColumnKind.OBJECT) ) {
+                    this.boxings[i] = Boxing.ofClassName(metaData.getColumnClassName(i + 1));
+                    if ( ! this.boxings[i].fits(this.kinds[i]) ) {
+                        this.kinds[i] = ColumnKind.OBJECT;
+                        this.boxings[i] = Boxing.NONE;
+                    }
+                }
+
+                switch ( this.kinds[i] ) {
+                    case LONG:
+                        this.slots[i] = longs++;
+                        break;
+                    case DOUBLE:
+                        this.slots[i] = doubles++;
+                        break;
+                    default:
+                        this.slots[i] = objects++;
+                }
+            }
+
+            this.longsCount = longs;
+            this.doublesCount = doubles;
+            this.objectsCount = objects;
+        }
+
+        public static Columns of(ResultSet rs, SqlTypeToJavaTypeConverter converter) throws SQLException {
+            return new Columns(rs.getMetaData(), converter);
+        }
+
+        public RowSnapshot copyCurrentRow(ResultSet rs) throws SQLException {
+            long[] longs = this.longsCount > 0 ? new long[this.longsCount] : null;
+            double[] doubles = this.doublesCount > 0 ? new double[this.doublesCount] : null;
+            Object[] objects = this.objectsCount > 0 ? new Object[this.objectsCount] : null;
+            long[] nulls = null;
+
+            int slot;
+            boolean wasNull;
+            for ( int i = 0; i < this.count; i++ ) {
+                slot = this.slots[i];
+                switch ( this.kinds[i] ) {
+                    case LONG:
+                        longs[slot] = rs.getLong(i + 1);
+                        wasNull = rs.wasNull();
+                        break;
+                    case DOUBLE:
+                        doubles[slot] = rs.getDouble(i + 1);
+                        wasNull = rs.wasNull();
+                        break;
+                    default:
+                        objects[slot] = detached(rs.getObject(i + 1));
+                        wasNull = false;
+                }
+
+                if ( wasNull ) {
+                    if ( isNull(nulls) ) {
+                        nulls = new long[(this.count + 63) / 64];
+                    }
+                    nulls[i / 64] |= 1L << (i % 64);
+                }
+            }
+
+            return new RowSnapshot(this, longs, doubles, objects, nulls);
+        }
+
+        private int indexOf(String columnLabel) {
+            Integer index = this.indexes.get(columnLabel);
+
+            if ( isNull(index) ) {
+                index = this.indexes.get(columnLabel.toLowerCase());
+            }
+
+            if ( isNull(index) ) {
+                throw new JdbcException(format("Column '%s' not found in row!", columnLabel));
+            }
+
+            return index;
+        }
+
+        private static Object detached(Object value) throws SQLException {
+            if ( value instanceof Blob ) {
+                Blob blob = (Blob) value;
+                try {
+                    return blob.getBytes(1, (int) blob.length());
+                }
+                finally {
+                    blob.free();
+                }
+            }
+            else if ( value instanceof Clob ) {
+                Clob clob = (Clob) value;
+                try {
+                    return clob.getSubString(1, (int) clob.length());
+                }
+                finally {
+                    clob.free();
+                }
+            }
+            else {
+                return value;
+            }
+        }
+    }
+
+    private final Columns columns;
+    private final long[] longs;
+    private final double[] doubles;
+    private final Object[] objects;
+    /* bit set of primitive columns having SQL NULL, null if there are no such columns */
+    private final long[] nulls;
+
+    private RowSnapshot(Columns columns, long[] longs, double[] doubles, Object[] objects, long[] nulls) {
+        this.columns = columns;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.objects = objects;
+        this.nulls = nulls;
+    }
+
+    private boolean isSqlNull(int column) {
+        return this.nulls != null && (this.nulls[column / 64] & (1L << (column % 64))) != 0;
+    }
+
+    @Override
+    public Object get(String columnLabel) {
+        int column = this.columns.indexOf(columnLabel);
+        int slot = this.columns.slots[column];
+
+        if ( this.isSqlNull(column) ) {
+            return null;
+        }
+
+        switch ( this.columns.boxings[column] ) {
+            case BYTE:
+                return (byte) this.longs[slot];
+            case SHORT:
+                return (short) this.longs[slot];
+            case INT:
+                return (int) this.longs[slot];
+            case LONG:
+                return this.longs[slot];
+            case FLOAT:
+                return (float) this.doubles[slot];
+            case DOUBLE:
+                return this.doubles[slot];
+            default:
+                return this.objects[slot];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(String columnLabel, Class<T> type) {
+        Object result = this.get(columnLabel);
+
+        if ( isNull(result) ) {
+            return null;
+        }
+
+        Class<?> resultType = result.getClass();
+        if ( type.equals(resultType) || type.isAssignableFrom(resultType) ) {
+            return (T) result;
+        } else {
+            return this.columns.converter.convert(result, type);
+        }
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) {
+        Object result = this.get(columnLabel);
+
+        if ( isNull(result) ) {
+            return null;
+        }
+
+        if ( result instanceof byte[] ) {
+            return (byte[]) result;
+        }
+
+        throw new JdbcException(format("Column '%s' does not contain bytes!", columnLabel));
+    }
+
+    @Override
+    public Row snapshot() {
+        return this;
+    }
+}
@@ -1,6 +1,12 @@
 package diarsid.jdbc.impl;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import diarsid.jdbc.api.exceptions.OperationCancelledException;
+import diarsid.jdbc.api.sqltable.rows.Row;
 import diarsid.jdbc.api.sqltable.rows.RowOperation;
+import diarsid.jdbc.api.sqltable.rows.StoppableRowOperation;
 import diarsid.jdbc.api.sqltable.rows.collectors.RowsIterationAware;
 
 import static diarsid.jdbc.api.sqltable.rows.collectors.RowsIterationAware.State.AFTER_ITERATING;
@@ -8,6 +14,13 @@ import static diarsid.jdbc.api.sqltable.rows.collectors.RowsIterationAware.State
 
 public class RowsIteration {
 
+    /* moves ResultSet to the next row, see nextRowIfNotInterrupted() */
+    @FunctionalInterface
+    public interface Cursor {
+
+        boolean next(ResultSet rs) throws SQLException;
+    }
+
     public static void whenRowsIterationAwareDoBefore(RowOperation operation) {
         if (operation instanceof RowsIterationAware) {
             RowsIterationAware rowsAwareOperation = (RowsIterationAware) operation;
@@ -24,4 +37,26 @@ public class RowsIteration {
         }
     }
 
+    /*
+     * Thread interruption is checked before every row, so that iteration
+     * abandoned by interrupted thread stops without reading the rest of rows.
+     * Interruption flag is preserved.
+     */
+    public static boolean nextRowIfNotInterrupted(ResultSet rs) throws SQLException {
+        if ( Thread.currentThread().isInterrupted() ) {
+            throw new OperationCancelledException("Rows iteration is stopped - thread is interrupted!");
+        }
+
+        return rs.next();
+    }
+
+    /* returns false if operation is StoppableRowOperation and it has decided to stop iteration */
+    public static boolean processAndProceed(RowOperation operation, Row row) {
+        if ( operation instanceof StoppableRowOperation ) {
+            return ((StoppableRowOperation) operation).processAndProceed(row);
+        }
+
+        operation.process(row);
+        return true;
+    }
 }
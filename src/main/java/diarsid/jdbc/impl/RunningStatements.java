@@ -0,0 +1,69 @@
+package diarsid.jdbc.impl;
+
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/*
+ * Statements executed outside of transactions, by threads that execute them, so that
+ * operation run by some thread can be cancelled from other thread with Statement.cancel().
+ * Statement is registered within try-with-resources and registration is removed on close.
+ * If row operation runs another query in the same thread, registration of outer statement
+ * is restored when inner one is closed.
+ */
+class RunningStatements {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunningStatements.class);
+
+    class Registration implements AutoCloseable {
+
+        private final Thread thread;
+        private final Statement previous;
+
+        private Registration(Thread thread, Statement previous) {
+            this.thread = thread;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if ( isNull(this.previous) ) {
+                statementsByThreads.remove(this.thread);
+            }
+            else {
+                statementsByThreads.put(this.thread, this.previous);
+            }
+        }
+    }
+
+    private final Map<Thread, Statement> statementsByThreads;
+
+    RunningStatements() {
+        this.statementsByThreads = new ConcurrentHashMap<>();
+    }
+
+    Registration register(Statement statement) {
+        Thread thread = Thread.currentThread();
+        Statement previous = this.statementsByThreads.put(thread, statement);
+        return new Registration(thread, previous);
+    }
+
+    void cancelStatementOf(Thread thread) {
+        Statement statement = this.statementsByThreads.get(thread);
+
+        if ( nonNull(statement) ) {
+            try {
+                statement.cancel();
+            }
+            catch (Throwable e) {
+                logger.debug("cannot cancel statement: ", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package diarsid.jdbc.impl;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.sqltable.rows.Row;
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/*
+ * Runs queries against several sources concurrently and gathers converted
+ * rows into one iterator. Readers put rows into bounded queues, so at most
+ * (sources x fetchSize) converted rows are held in memory at once. Without
+ * an order all readers share one queue; with an order every source has its
+ * own queue and they are merged with a k-way heap merge, which assumes every
+ * source already returns rows in this order. Readers stop and release their
+ * connections as soon as the iterator is closed, so a partially consumed
+ * stream must be closed. Readers use non-autocommit read-only connections, as
+ * drivers usually ignore fetch size in autocommit mode and read whole result at once.
+ */
+class ScatterGather<T> implements Iterator<T>, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScatterGather.class);
+
+    private static final Object END = new Object();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    static final long NO_LIMIT = Long.MAX_VALUE;
+
+    static class Source {
+
+        final JdbcImpl jdbc;
+        final String sql;
+        final List params;
+
+        Source(JdbcImpl jdbc, String sql, List params) {
+            this.jdbc = jdbc;
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+
+    private static class Failure {
+
+        private final Throwable throwable;
+
+        private Failure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+
+    private class Head {
+
+        private final int sourceIndex;
+        private final T item;
+
+        private Head(int sourceIndex, T item) {
+            this.sourceIndex = sourceIndex;
+            this.item = item;
+        }
+    }
+
+    private class SourceReader implements Runnable {
+
+        private final Source source;
+        private final BlockingQueue<Object> queue;
+
+        private SourceReader(Source source, BlockingQueue<Object> queue) {
+            this.source = source;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            JdbcImpl jdbc = this.source.jdbc;
+            Object last = END;
+            try (var reading = jdbc.readingConnection();
+                 var ps = reading.connection().prepareStatement(this.source.sql);
+                 var stub = jdbc.resources().paramsSetter.setParameters(ps, this.source.params)) {
+
+                runningStatements.add(ps);
+                if ( cancelled ) {
+                    return;
+                }
+
+                ps.setFetchSize(fetchSize);
+                if ( limit < Integer.MAX_VALUE ) {
+                    ps.setMaxRows((int) limit);
+                }
+
+                try (var rs = ps.executeQuery()) {
+                    Row row = jdbc.wrapResultSetIntoRow(rs);
+                    T item;
+                    while ( ! cancelled && rs.next() ) {
+                        item = conversion.getFrom(row);
+                        if ( isNull(item) ) {
+                            throw new JdbcException("Row has been converted to null, but gathered items must not be null!");
+                        }
+                        this.put(item);
+                    }
+                }
+                finally {
+                    runningStatements.remove(ps);
+                }
+            }
+            catch (Throwable t) {
+                if ( ! cancelled ) {
+                    logger.error("Exception occurred during scatter-gather query: ");
+                    logger.error(this.source.sql);
+                    logger.error("", t);
+                    last = new Failure(t);
+                }
+            }
+            finally {
+                putLast(this.queue, last);
+            }
+        }
+
+        private void put(Object item) {
+            try {
+                while ( ! cancelled ) {
+                    if ( this.queue.offer(item, OFFER_TIMEOUT_MILLIS, MILLISECONDS) ) {
+                        return;
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JdbcException(e);
+            }
+        }
+    }
+
+    /*
+     * END or Failure must reach the queue in any case, otherwise consumer blocks forever
+     * in take(). When consumer is gone or source has failed, rows still waiting in the
+     * queue are useless, so one of them is dropped to make place for the last item.
+     */
+    private void putLast(BlockingQueue<Object> queue, Object last) {
+        boolean interrupted = Thread.interrupted();
+        boolean put = false;
+
+        while ( ! put ) {
+            if ( queue.offer(last) ) {
+                put = true;
+            }
+            else if ( this.cancelled || last instanceof Failure ) {
+                queue.poll();
+            }
+            else {
+                try {
+                    put = queue.offer(last, OFFER_TIMEOUT_MILLIS, MILLISECONDS);
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if ( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final RowGetter<T> conversion;
+    private final long limit;
+    private final int fetchSize;
+    private final List<BlockingQueue<Object>> queues;
+    private final PriorityQueue<Head> heads;
+    private volatile boolean cancelled;
+    private final Set<Statement> runningStatements;
+    private int unfinishedSources;
+    private boolean headsTaken;
+    private long returned;
+    private T next;
+
+    ScatterGather(
+            List<Source> sources,
+            ExecutorService executor,
+            RowGetter<T> conversion,
+            Comparator<? super T> order,
+            long limit,
+            int fetchSize) {
+        this.conversion = conversion;
+        this.limit = limit;
+        this.fetchSize = fetchSize;
+        this.queues = new ArrayList<>(sources.size());
+        this.unfinishedSources = sources.size();
+        this.headsTaken = false;
+        this.returned = 0;
+        this.cancelled = false;
+        this.runningStatements = ConcurrentHashMap.newKeySet();
+
+        if ( nonNull(order) ) {
+            this.heads = new PriorityQueue<>(sources.size(), (head1, head2) -> order.compare(head1.item, head2.item));
+            for ( Source source : sources ) {
+                BlockingQueue<Object> queue = new ArrayBlockingQueue<>(fetchSize);
+                this.queues.add(queue);
+                this.startReading(executor, source, queue);
+            }
+        }
+        else {
+            this.heads = null;
+            BlockingQueue<Object> sharedQueue = new ArrayBlockingQueue<>(fetchSize * sources.size());
+            this.queues.add(sharedQueue);
+            for ( Source source : sources ) {
+                this.startReading(executor, source, sharedQueue);
+            }
+        }
+    }
+
+    private void startReading(ExecutorService executor, Source source, BlockingQueue<Object> queue) {
+        try {
+            executor.execute(new SourceReader(source, queue));
+        }
+        catch (RejectedExecutionException e) {
+            this.putLast(queue, new Failure(e));
+        }
+    }
+
+    Stream<T> stream() {
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(this, ORDERED | NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( nonNull(this.next) ) {
+            return true;
+        }
+
+        if ( this.cancelled || this.returned >= this.limit ) {
+            this.close();
+            return false;
+        }
+
+        if ( nonNull(this.heads) ) {
+            this.next = this.nextMerged();
+        }
+        else {
+            this.next = this.nextUnordered();
+        }
+
+        if ( isNull(this.next) ) {
+            this.close();
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if ( ! this.hasNext() ) {
+            throw new NoSuchElementException();
+        }
+
+        T item = this.next;
+        this.next = null;
+        this.returned++;
+        return item;
+    }
+
+    private T nextMerged() {
+        if ( ! this.headsTaken ) {
+            for ( int i = 0; i < this.queues.size(); i++ ) {
+                this.pushHeadFrom(i);
+            }
+            this.headsTaken = true;
+        }
+
+        Head head = this.heads.poll();
+
+        if ( isNull(head) ) {
+            return null;
+        }
+
+        this.pushHeadFrom(head.sourceIndex);
+        return head.item;
+    }
+
+    private void pushHeadFrom(int sourceIndex) {
+        T item = this.take(this.queues.get(sourceIndex));
+        if ( nonNull(item) ) {
+            this.heads.add(new Head(sourceIndex, item));
+        }
+        else {
+            this.unfinishedSources--;
+        }
+    }
+
+    private T nextUnordered() {
+        BlockingQueue<Object> sharedQueue = this.queues.get(0);
+
+        T item;
+        while ( this.unfinishedSources > 0 ) {
+            item = this.take(sharedQueue);
+
+            if ( nonNull(item) ) {
+                return item;
+            }
+
+            this.unfinishedSources--;
+        }
+
+        return null;
+    }
+
+    private T take(BlockingQueue<Object> queue) {
+        return this.unwrap(this.takeFrom(queue));
+    }
+
+    private Object takeFrom(BlockingQueue<Object> queue) {
+        try {
+            return queue.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new JdbcException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T unwrap(Object item) {
+        if ( item == END ) {
+            return null;
+        }
+
+        if ( item instanceof Failure ) {
+            this.close();
+            throw new JdbcException(((Failure) item).throwable);
+        }
+
+        return (T) item;
+    }
+
+    /* cancels statements still executing, so that abandoned stream releases connections immediately */
+    @Override
+    public void close() {
+        this.cancelled = true;
+
+        for ( Statement statement : this.runningStatements ) {
+            try {
+                statement.cancel();
+            }
+            catch (Throwable e) {
+                logger.debug("cannot cancel scatter-gather statement: ", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package diarsid.jdbc.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.JdbcOption;
+import diarsid.jdbc.api.JdbcTransaction;
+import diarsid.jdbc.api.ShardedJdbc;
+import diarsid.jdbc.api.SqlConnectionsSource;
+import diarsid.jdbc.api.ThreadBoundJdbcTransaction;
+import diarsid.jdbc.api.TransactionOptions;
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import static diarsid.jdbc.api.JdbcOption.SCATTER_GATHER_FETCH_SIZE;
+import static diarsid.jdbc.impl.ScatterGather.NO_LIMIT;
+
+public class ShardedJdbcImpl<K> implements ShardedJdbc<K> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedJdbc.class);
+
+    private static final int DEFAULT_SCATTER_GATHER_FETCH_SIZE = 128;
+
+    private final List<JdbcImpl> shards;
+    private final Sharding<K> sharding;
+    private final int scatterGatherFetchSize;
+    private final ExecutorService scatterGatherReaders;
+
+    public ShardedJdbcImpl(
+            List<SqlConnectionsSource> sources,
+            Sharding<K> sharding,
+            Map<JdbcOption, Object> options) {
+        if ( sources.isEmpty() ) {
+            throw new JdbcException("At least one shard source must be specified!");
+        }
+
+        /* every shard gets its own copy of options, so that shards never share mutable state through it */
+        List<JdbcImpl> shards = new ArrayList<>();
+        try {
+            for ( SqlConnectionsSource source : sources ) {
+                shards.add((JdbcImpl) new JdbcBuilder(source, new HashMap<>(options)).build());
+            }
+        }
+        catch (Throwable t) {
+            for ( JdbcImpl built : shards ) {
+                try {
+                    built.close();
+                }
+                catch (Throwable closeFailure) {
+                    t.addSuppressed(closeFailure);
+                }
+            }
+            throw t;
+        }
+
+        this.shards = unmodifiableList(shards);
+        this.sharding = sharding;
+
+        Object fetchSize = options.get(SCATTER_GATHER_FETCH_SIZE);
+        if ( fetchSize instanceof Integer && (int) fetchSize > 0 ) {
+            this.scatterGatherFetchSize = (int) fetchSize;
+        }
+        else {
+            this.scatterGatherFetchSize = DEFAULT_SCATTER_GATHER_FETCH_SIZE;
+        }
+
+        AtomicInteger readersCounter = new AtomicInteger();
+        this.scatterGatherReaders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "jdbc-scatter-gather-" + readersCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int shardsQty() {
+        return this.shards.size();
+    }
+
+    @Override
+    public Jdbc shard(int index) {
+        if ( index < 0 || index >= this.shards.size() ) {
+            throw new JdbcException(format(
+                    "Shard index %s is out of bounds, shards qty: %s", index, this.shards.size()));
+        }
+
+        return this.shards.get(index);
+    }
+
+    @Override
+    public Jdbc shardFor(K key) {
+        int index = this.sharding.shardOf(key, this.shards.size());
+        return this.shard(index);
+    }
+
+    @Override
+    public JdbcTransaction createTransaction(K key) {
+        return this.shardFor(key).createTransaction();
+    }
+
+    @Override
+    public JdbcTransaction createTransaction(K key, TransactionOptions options) {
+        return this.shardFor(key).createTransaction(options);
+    }
+
+    @Override
+    public void doInTransaction(K key, Consumer<ThreadBoundJdbcTransaction> transactionalOperation) {
+        this.shardFor(key).doInTransaction(transactionalOperation);
+    }
+
+    @Override
+    public void doInTransaction(
+            K key, TransactionOptions options, Consumer<ThreadBoundJdbcTransaction> transactionalOperation) {
+        this.shardFor(key).doInTransaction(options, transactionalOperation);
+    }
+
+    @Override
+    public <T> T doInTransaction(K key, Function<ThreadBoundJdbcTransaction, T> transactionalFunction) {
+        return this.shardFor(key).doInTransaction(transactionalFunction);
+    }
+
+    @Override
+    public <T> T doInTransaction(
+            K key, TransactionOptions options, Function<ThreadBoundJdbcTransaction, T> transactionalFunction) {
+        return this.shardFor(key).doInTransaction(options, transactionalFunction);
+    }
+
+    @Override
+    public <P> P createTransactionalProxyFor(K key, Class<P> type, P p, Jdbc.WhenNoTransactionThen then) {
+        return this.shardFor(key).createTransactionalProxyFor(type, p, then);
+    }
+
+    @Override
+    public <T> Stream<T> doQueryOnAllShardsAndStream(
+            RowGetter<T> conversion, String sql, Object... params) {
+        return this.scatterGather(conversion, null, NO_LIMIT, sql, asList(params));
+    }
+
+    @Override
+    public <T> Stream<T> doQueryOnAllShardsAndStream(
+            RowGetter<T> conversion, String sql, List params) {
+        return this.scatterGather(conversion, null, NO_LIMIT, sql, params);
+    }
+
+    @Override
+    public <T> Stream<T> doQueryOnAllShardsAndStreamMerged(
+            RowGetter<T> conversion, Comparator<? super T> order, long limit, String sql, Object... params) {
+        return this.scatterGather(conversion, requireNonNull(order), limit, sql, asList(params));
+    }
+
+    @Override
+    public <T> Stream<T> doQueryOnAllShardsAndStreamMerged(
+            RowGetter<T> conversion, Comparator<? super T> order, long limit, String sql, List params) {
+        return this.scatterGather(conversion, requireNonNull(order), limit, sql, params);
+    }
+
+    private <T> Stream<T> scatterGather(
+            RowGetter<T> conversion, Comparator<? super T> order, long limit, String sql, List params) {
+        if ( limit < 1 ) {
+            throw new JdbcException(format("Limit must be positive, but was %s", limit));
+        }
+
+        List<ScatterGather.Source> sources = new ArrayList<>();
+        for ( JdbcImpl shard : this.shards ) {
+            sources.add(new ScatterGather.Source(shard, sql, params));
+        }
+
+        ScatterGather<T> scatterGather = new ScatterGather<>(
+                sources, this.scatterGatherReaders, conversion, order, limit, this.scatterGatherFetchSize);
+
+        return scatterGather.stream();
+    }
+
+    @Override
+    public void change(JdbcOption option, Object value) {
+        for ( Jdbc shard : this.shards ) {
+            shard.change(option, value);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.scatterGatherReaders.shutdownNow();
+        for ( Jdbc shard : this.shards ) {
+            try {
+                shard.close();
+            }
+            catch (Throwable t) {
+                logger.error("cannot close shard: ", t);
+            }
+        }
+        logger.info("closed.");
+    }
+}
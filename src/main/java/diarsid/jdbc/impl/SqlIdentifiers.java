@@ -0,0 +1,23 @@
+package diarsid.jdbc.impl;
+
+import java.util.regex.Pattern;
+
+import diarsid.jdbc.api.exceptions.JdbcException;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+
+/*
+ * Table and column names that are inserted into generated SQL must be plain,
+ * optionally qualified, identifiers, so that SQL cannot be injected through them.
+ */
+public class SqlIdentifiers {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)*");
+
+    public static void mustBeIdentifier(String name) {
+        if ( isNull(name) || ! IDENTIFIER.matcher(name).matches() ) {
+            throw new JdbcException(format("'%s' is not a valid table or column name!", name));
+        }
+    }
+}
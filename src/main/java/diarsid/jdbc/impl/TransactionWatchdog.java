@@ -0,0 +1,81 @@
+package diarsid.jdbc.impl;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import diarsid.jdbc.api.OpenTransactionInfo;
+import diarsid.jdbc.impl.transaction.JdbcTransactionReal;
+import diarsid.jdbc.impl.transaction.OpenTransactionsRegistry;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+/*
+ * Periodically checks registry of open transactions and either reports
+ * transactions older than threshold or aborts them. Every transaction is
+ * reported only once, so that a stuck transaction does not flood the log.
+ */
+class TransactionWatchdog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionWatchdog.class);
+
+    private final OpenTransactionsRegistry registry;
+    private final Duration threshold;
+    private final boolean abort;
+    private final Set<UUID> reported;
+    private final ScheduledExecutorService scheduler;
+
+    TransactionWatchdog(OpenTransactionsRegistry registry, Duration threshold, boolean abort) {
+        this.registry = registry;
+        this.threshold = threshold;
+        this.abort = abort;
+        this.reported = ConcurrentHashMap.newKeySet();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jdbc-transaction-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long periodMillis = min(max(threshold.toMillis() / 2, 100), 60_000);
+        this.scheduler.scheduleWithFixedDelay(this::check, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void check() {
+        try {
+            this.reported.removeIf(uuid -> ! this.registry.contains(uuid));
+
+            for ( JdbcTransactionReal transaction : this.registry.olderThan(this.threshold) ) {
+                if ( ! this.reported.add(transaction.uuid()) ) {
+                    continue;
+                }
+
+                OpenTransactionInfo info = transaction.info();
+
+                if ( this.abort ) {
+                    logger.warn(format("aborting transaction open longer than %s: %s", this.threshold, info));
+                    transaction.abort(format("open longer than %s", this.threshold));
+                }
+                else {
+                    logger.warn(format("transaction is open longer than %s: %s", this.threshold, info));
+                }
+            }
+        }
+        catch (Throwable t) {
+            logger.error("transaction watchdog check failed: ", t);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+}
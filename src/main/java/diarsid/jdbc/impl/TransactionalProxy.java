@@ -1,23 +1,41 @@
 package diarsid.jdbc.impl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.RetryPolicy;
 import diarsid.jdbc.api.TransactionAware;
+import diarsid.jdbc.api.Transactional;
+import diarsid.jdbc.api.TransactionOptions;
 import diarsid.jdbc.api.exceptions.ForbiddenTransactionOperation;
 import diarsid.jdbc.impl.transaction.JdbcTransactionReal;
 import diarsid.support.objects.CommonEnum;
 import org.slf4j.LoggerFactory;
 
+import static java.lang.String.format;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 import static diarsid.jdbc.api.JdbcTransaction.State.OPEN;
 import static diarsid.jdbc.api.JdbcTransaction.ThenDo.CLOSE;
+import static diarsid.jdbc.api.TransactionOptions.DEFAULT;
+import static diarsid.jdbc.api.Transactional.Propagation.AS_PROXY;
+import static diarsid.jdbc.api.Transactional.Propagation.JOIN_OR_OPEN_NEW;
+import static diarsid.jdbc.api.Transactional.Propagation.JOIN_OR_THROW;
+import static diarsid.jdbc.api.Transactional.Propagation.NO_TRANSACTION;
+import static diarsid.jdbc.api.Transactional.Propagation.OPEN_NEW;
+import static diarsid.jdbc.impl.JdbcImpl.pauseBeforeRetry;
+import static diarsid.jdbc.impl.JdbcImpl.retryAttemptDescription;
 
 public final class TransactionalProxy implements InvocationHandler, TransactionAware {
 
@@ -26,7 +44,40 @@ public final class TransactionalProxy implements InvocationHandler, TransactionA
         CREATED_NEW
     }
 
+    /* (Object[])Object shape of all cached method handles */
+    private static final MethodType INVOCATION_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodHandle REFLECTIVE_INVOCATION;
+
+    static {
+        try {
+            REFLECTIVE_INVOCATION = MethodHandles.lookup().findVirtual(
+                    Method.class,
+                    "invoke",
+                    MethodType.methodType(Object.class, Object.class, Object[].class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /* everything needed to invoke a method, resolved once per method */
+    private static final class MethodInvocation {
+
+        private final MethodHandle handle;
+        private final Transactional.Propagation propagation;
+        private final TransactionOptions options;
+
+        private MethodInvocation(
+                MethodHandle handle, Transactional.Propagation propagation, TransactionOptions options) {
+            this.handle = handle;
+            this.propagation = propagation;
+            this.options = options;
+        }
+    }
+
     private final Object transactional;
+    private final Map<Method, MethodInvocation> methodInvocations;
+    private final boolean hasAnyAware;
 
     private final TransactionAware transactionalAware;
     private final boolean isTransactionalAware;
@@ -38,12 +89,22 @@ public final class TransactionalProxy implements InvocationHandler, TransactionA
 
     private final JdbcImpl jdbc;
     private final Jdbc.WhenNoTransactionThen whenNoTransactionThen;
+    private final TransactionOptions transactionOptions;
+
+    public TransactionalProxy(
+            Object transactional,
+            JdbcImpl jdbc,
+            Jdbc.WhenNoTransactionThen whenNoTransactionThen) {
+        this(transactional, jdbc, DEFAULT, whenNoTransactionThen);
+    }
 
     public TransactionalProxy(
             Object transactional,
             JdbcImpl jdbc,
+            TransactionOptions transactionOptions,
             Jdbc.WhenNoTransactionThen whenNoTransactionThen) {
         this.transactional = transactional;
+        this.transactionOptions = transactionOptions;
         this.transactionalAwareExceptionsHolder = new ThreadLocal<>();
         this.transactionalAware2ExceptionsHolder = new ThreadLocal<>();
         this.jdbc = jdbc;
@@ -60,6 +121,8 @@ public final class TransactionalProxy implements InvocationHandler, TransactionA
 
         this.hasTransactionalAware = false;
         this.transactionalAware2 = null;
+        this.hasAnyAware = this.isTransactionalAware;
+        this.methodInvocations = new ConcurrentHashMap<>();
     }
 
     public TransactionalProxy(
@@ -68,6 +131,7 @@ public final class TransactionalProxy implements InvocationHandler, TransactionA
             JdbcImpl jdbc,
             Jdbc.WhenNoTransactionThen whenNoTransactionThen) {
         this.transactional = transactional;
+        this.transactionOptions = DEFAULT;
         this.transactionalAwareExceptionsHolder = new ThreadLocal<>();
         this.transactionalAware2ExceptionsHolder = new ThreadLocal<>();
         this.jdbc = jdbc;
@@ -84,92 +148,269 @@ public final class TransactionalProxy implements InvocationHandler, TransactionA
 
         this.hasTransactionalAware = true;
         this.transactionalAware2 = aware;
+        this.hasAnyAware = true;
+        this.methodInvocations = new ConcurrentHashMap<>();
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) {
         JdbcTransactionThreadBindingControl threadBinding = this.jdbc.threadBinding();
+        MethodInvocation invocation = this.invocationOf(method);
+
+        if ( invocation.propagation.equalTo(NO_TRANSACTION) ) {
+            return invokeWithoutTransaction(invocation, args);
+        }
+
+        if ( ! this.hasAnyAware ) {
+            return this.invokeInTransaction(threadBinding, invocation, method, args);
+        }
 
-        JdbcTransactionReal currentTransaction;
         try {
-            if ( threadBinding.isBound() ) {
-                currentTransaction = (JdbcTransactionReal) threadBinding.currentTransaction();
-                if ( currentTransaction.state().equalTo(OPEN) ) {
-                    try {
-                        this.beforeTransactionJoinFor(method, args);
-                        Object result = method.invoke(this.transactional, args);
-                        return result;
-                    }
-                    catch (InvocationTargetException i) {
-                        if ( currentTransaction.state().equalTo(OPEN) ) {
-                            currentTransaction.fail();
-                        }
-                        throw asUnchecked(i.getTargetException());
-                    }
-                    catch (RuntimeException e) {
-                        if ( currentTransaction.state().equalTo(OPEN) ) {
-                            currentTransaction.fail();
-                        }
-                        throw e;
-                    }
-                    catch (Throwable t) {
-                        if ( currentTransaction.state().equalTo(OPEN) ) {
-                            currentTransaction.fail();
-                        }
-                        throw asUnchecked(t);
-                    }
-                }
-                else {
-                    throw new ForbiddenTransactionOperation("Transaction is " + currentTransaction.state());
-                }
+            return this.invokeInTransaction(threadBinding, invocation, method, args);
+        }
+        finally {
+            try {
+                this.supplyHoldExceptionsIfAny();
             }
-            else {
-                this.beforeTransactionOpenFor(method, args);
-                threadBinding.bindNew();
-                this.afterTransactionOpenFor(method, args);
-                currentTransaction = (JdbcTransactionReal) threadBinding.currentTransaction();
-                try {
-                    Object result = method.invoke(this.transactional, args);
-                    this.beforeTransactionCommitAndCloseFor(method, args);
-                    currentTransaction.commitAndClose();
-                    this.afterTransactionCommitAndCloseFor(method, args);
+            finally {
+                this.transactionalAwareExceptionsHolder.remove();
+                this.transactionalAware2ExceptionsHolder.remove();
+            }
+        }
+    }
+
+    private static Object invokeWithoutTransaction(MethodInvocation invocation, Object[] args) {
+        try {
+            return invoke(invocation.handle, args);
+        }
+        catch (InvocationTargetException i) {
+            throw asUnchecked(i.getTargetException());
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw asUnchecked(t);
+        }
+    }
 
-                    return result;
+    private Object invokeInTransaction(
+            JdbcTransactionThreadBindingControl threadBinding, MethodInvocation invocation, Method method, Object[] args) {
+        JdbcTransactionReal currentTransaction = threadBinding.currentTransactionOrNull();
+
+        if ( invocation.propagation.equalTo(OPEN_NEW) ) {
+            if ( isNull(currentTransaction) ) {
+                return this.invokeInNewTransactionRetrying(threadBinding, invocation, method, args);
+            }
+
+            threadBinding.unbind();
+            try {
+                return this.invokeInNewTransactionRetrying(threadBinding, invocation, method, args);
+            }
+            finally {
+                threadBinding.bindExisting(currentTransaction);
+            }
+        }
+
+        if ( nonNull(currentTransaction) ) {
+            if ( currentTransaction.state().equalTo(OPEN) ) {
+                try {
+                    if ( this.hasAnyAware ) {
+                        this.beforeTransactionJoinFor(method, args);
+                    }
+                    return invoke(invocation.handle, args);
                 }
                 catch (InvocationTargetException i) {
-                    this.beforeTransactionRollbackAndCloseFor(method, args);
-                    currentTransaction.rollbackAnd(CLOSE);
-                    this.afterTransactionRollbackAndCloseFor(method, args);
+                    if ( currentTransaction.state().equalTo(OPEN) ) {
+                        currentTransaction.fail();
+                    }
                     throw asUnchecked(i.getTargetException());
                 }
                 catch (RuntimeException e) {
-                    this.beforeTransactionRollbackAndCloseFor(method, args);
-                    currentTransaction.rollbackAnd(CLOSE);
-                    this.afterTransactionRollbackAndCloseFor(method, args);
+                    if ( currentTransaction.state().equalTo(OPEN) ) {
+                        currentTransaction.fail();
+                    }
                     throw e;
                 }
                 catch (Throwable t) {
-                    this.beforeTransactionRollbackAndCloseFor(method, args);
-                    currentTransaction.rollbackAnd(CLOSE);
-                    this.afterTransactionRollbackAndCloseFor(method, args);
+                    if ( currentTransaction.state().equalTo(OPEN) ) {
+                        currentTransaction.fail();
+                    }
                     throw asUnchecked(t);
                 }
-                finally {
-                    threadBinding.unbind();
-                }
+            }
+            else {
+                throw new ForbiddenTransactionOperation("Transaction is " + currentTransaction.state());
             }
         }
-        finally {
+        else if ( invocation.propagation.equalTo(JOIN_OR_THROW) ) {
+            throw new ForbiddenTransactionOperation(format(
+                    "There is no open transaction to join for %s.%s",
+                    method.getDeclaringClass().getSimpleName(), method.getName()));
+        }
+        else {
+            return this.invokeInNewTransactionRetrying(threadBinding, invocation, method, args);
+        }
+    }
+
+    private Object invokeInNewTransactionRetrying(
+            JdbcTransactionThreadBindingControl threadBinding, MethodInvocation invocation, Method method, Object[] args) {
+        RetryPolicy retry = invocation.options.retry();
+        int attempt = 1;
+        RuntimeException previousFailure = null;
+
+        while ( true ) {
             try {
-                this.supplyHoldExceptionsIfAny();
+                return this.invokeInNewTransaction(threadBinding, invocation, method, args, attempt, previousFailure);
             }
-            finally {
-                this.transactionalAwareExceptionsHolder.remove();
-                this.transactionalAware2ExceptionsHolder.remove();
+            catch (RuntimeException failure) {
+                if ( retry.allowsRetryAfter(attempt, failure) ) {
+                    pauseBeforeRetry(retry, attempt, failure);
+                    previousFailure = failure;
+                    attempt++;
+                }
+                else {
+                    throw failure;
+                }
             }
         }
     }
 
+    private static Object invoke(MethodHandle handle, Object[] args) throws Throwable {
+        return (Object) handle.invokeExact(args);
+    }
+
+    private MethodInvocation invocationOf(Method method) {
+        MethodInvocation invocation = this.methodInvocations.get(method);
+
+        if ( isNull(invocation) ) {
+            invocation = this.methodInvocations.computeIfAbsent(method, this::createInvocationOf);
+        }
+
+        return invocation;
+    }
+
+    private MethodInvocation createInvocationOf(Method method) {
+        MethodHandle handle = this.createHandleOf(method);
+
+        if ( method.getDeclaringClass().equals(Object.class) ) {
+            return new MethodInvocation(handle, NO_TRANSACTION, this.transactionOptions);
+        }
+
+        Transactional transactional = method.getAnnotation(Transactional.class);
+
+        if ( isNull(transactional) ) {
+            return new MethodInvocation(handle, this.proxyPropagation(), this.transactionOptions);
+        }
+
+        Transactional.Propagation propagation = transactional.propagation();
+        if ( propagation.equalTo(AS_PROXY) ) {
+            propagation = this.proxyPropagation();
+        }
+
+        TransactionOptions options = this.transactionOptions;
+
+        if ( transactional.readOnly() ) {
+            options = options.readOnly();
+        }
+
+        if ( transactional.isolation().isNotDefault() ) {
+            options = options.withIsolation(transactional.isolation());
+        }
+
+        if ( transactional.timeoutMillis() > 0 ) {
+            options = options.withTimeout(Duration.ofMillis(transactional.timeoutMillis()));
+        }
+
+        if ( transactional.retryAttempts() > 1 ) {
+            options = options.withRetry(RetryPolicy.onDeadlockOrSerializationFailure(transactional.retryAttempts()));
+        }
+
+        return new MethodInvocation(handle, propagation, options);
+    }
+
+    private Transactional.Propagation proxyPropagation() {
+        switch ( this.whenNoTransactionThen ) {
+            case IF_NO_TRANSACTION_OPEN_NEW:
+                return JOIN_OR_OPEN_NEW;
+            case IF_NO_TRANSACTION_THROW:
+                return JOIN_OR_THROW;
+            default:
+                throw new UnsupportedOperationException(this.whenNoTransactionThen.name() + " is not supported!");
+        }
+    }
+
+    /*
+     * Method handle is bound to transactional object and spreads arguments array,
+     * so that it is invoked without per-call access checks of Method.invoke. If
+     * method is not accessible for this class, e.g. declared by non-public
+     * interface, Method.invoke is used through the handle of the same shape.
+     */
+    private MethodHandle createHandleOf(Method method) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup()
+                    .unreflect(method)
+                    .asFixedArity()
+                    .bindTo(this.transactional)
+                    .asSpreader(Object[].class, method.getParameterCount());
+        }
+        catch (IllegalAccessException | RuntimeException e) {
+            handle = REFLECTIVE_INVOCATION
+                    .bindTo(method)
+                    .bindTo(this.transactional);
+        }
+
+        return handle.asType(INVOCATION_TYPE);
+    }
+
+    private Object invokeInNewTransaction(
+            JdbcTransactionThreadBindingControl threadBinding,
+            MethodInvocation invocation,
+            Method method,
+            Object[] args,
+            int attempt,
+            Throwable previousFailure) {
+        this.beforeTransactionOpenFor(method, args);
+        threadBinding.bindNew(invocation.options);
+        this.afterTransactionOpenFor(method, args);
+        JdbcTransactionReal currentTransaction = (JdbcTransactionReal) threadBinding.currentTransaction();
+        if ( attempt > 1 ) {
+            currentTransaction.recordInHistory(
+                    retryAttemptDescription(invocation.options.retry(), attempt, previousFailure));
+        }
+        try {
+            Object result = invoke(invocation.handle, args);
+            this.beforeTransactionCommitAndCloseFor(method, args);
+            currentTransaction.commitAndClose();
+            this.afterTransactionCommitAndCloseFor(method, args);
+
+            return result;
+        }
+        catch (InvocationTargetException i) {
+            this.beforeTransactionRollbackAndCloseFor(method, args);
+            currentTransaction.rollbackAnd(CLOSE);
+            this.afterTransactionRollbackAndCloseFor(method, args);
+            throw asUnchecked(i.getTargetException());
+        }
+        catch (RuntimeException e) {
+            this.beforeTransactionRollbackAndCloseFor(method, args);
+            currentTransaction.rollbackAnd(CLOSE);
+            this.afterTransactionRollbackAndCloseFor(method, args);
+            throw e;
+        }
+        catch (Throwable t) {
+            this.beforeTransactionRollbackAndCloseFor(method, args);
+            currentTransaction.rollbackAnd(CLOSE);
+            this.afterTransactionRollbackAndCloseFor(method, args);
+            throw asUnchecked(t);
+        }
+        finally {
+            threadBinding.unbind();
+        }
+    }
+
+
     private static RuntimeException asUnchecked(Throwable t) {
         if ( t instanceof RuntimeException ) {
             return (RuntimeException) t;
@@ -0,0 +1,66 @@
+package diarsid.jdbc.impl.transaction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/*
+ * Queue of updates which results are not needed by the caller. Consecutive
+ * updates with the same SQL are grouped into one batch, while update with
+ * another SQL starts the next group, so that groups are executed exactly in
+ * order in which updates have been queued. Queue is not thread-safe and
+ * lives exactly as long as its transaction.
+ */
+final class DeferredWrites {
+
+    static final class Group {
+
+        final String sql;
+        final List<List> batch;
+
+        private Group(String sql) {
+            this.sql = sql;
+            this.batch = new ArrayList<>();
+        }
+    }
+
+    private final Deque<Group> groups;
+    private int queued;
+
+    DeferredWrites() {
+        this.groups = new ArrayDeque<>();
+        this.queued = 0;
+    }
+
+    void add(String sql, List params) {
+        Group last = this.groups.peekLast();
+        if ( last == null || ! last.sql.equals(sql) ) {
+            last = new Group(sql);
+            this.groups.addLast(last);
+        }
+        last.batch.add(params);
+        this.queued++;
+    }
+
+    boolean isEmpty() {
+        return this.groups.isEmpty();
+    }
+
+    int queued() {
+        return this.queued;
+    }
+
+    /* removes all groups from queue, so that they can be executed without re-entrance */
+    List<Group> drain() {
+        List<Group> drained = new ArrayList<>(this.groups);
+        this.groups.clear();
+        this.queued = 0;
+        return drained;
+    }
+
+    void discard() {
+        this.groups.clear();
+        this.queued = 0;
+    }
+}
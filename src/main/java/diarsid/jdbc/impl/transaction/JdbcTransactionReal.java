@@ -2,33 +2,51 @@ package diarsid.jdbc.impl.transaction;
 
 import java.io.Closeable;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import diarsid.jdbc.api.Cancellable;
 import diarsid.jdbc.api.JdbcDirectOperation;
 import diarsid.jdbc.api.JdbcTransaction;
+import diarsid.jdbc.api.OpenTransactionInfo;
 import diarsid.jdbc.api.SqlHistory;
 import diarsid.jdbc.api.ThreadBoundJdbcTransaction;
+import diarsid.jdbc.api.TransactionOptions;
 import diarsid.jdbc.api.exceptions.ForbiddenTransactionOperation;
 import diarsid.jdbc.api.exceptions.JdbcException;
 import diarsid.jdbc.api.exceptions.JdbcPreparedStatementParamsException;
+import diarsid.jdbc.api.exceptions.OperationCancelledException;
+import diarsid.jdbc.api.exceptions.TransactionDeadlineExceededException;
 import diarsid.jdbc.api.exceptions.TransactionTerminationException;
 import diarsid.jdbc.api.sqltable.rows.Row;
+import diarsid.jdbc.api.sqltable.rows.RowBlockOperation;
 import diarsid.jdbc.api.sqltable.rows.RowGetter;
 import diarsid.jdbc.api.sqltable.rows.RowOperation;
+import diarsid.jdbc.impl.ColumnarRowBlock;
 import diarsid.jdbc.impl.JdbcImplStaticResources;
+import diarsid.jdbc.impl.ParallelRowsProcessing;
+import diarsid.jdbc.impl.PipelinedRowsIteration;
+import diarsid.jdbc.impl.RowSnapshot;
 import diarsid.jdbc.impl.SqlConnectionProxyFactory;
 import diarsid.jdbc.impl.sqlhistory.SqlHistoryRecorder;
 
@@ -42,6 +60,7 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.Optional.empty;
 import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.stream.Collectors.toList;
 
 import static diarsid.jdbc.api.JdbcTransaction.State.CLOSED_COMMITTED;
@@ -50,19 +69,32 @@ import static diarsid.jdbc.api.JdbcTransaction.State.FAILED;
 import static diarsid.jdbc.api.JdbcTransaction.State.OPEN;
 import static diarsid.jdbc.api.JdbcTransaction.ThenDo.CLOSE;
 import static diarsid.jdbc.api.JdbcTransaction.ThenDo.PROCEED;
+import static diarsid.jdbc.api.JdbcTransaction.ThenDo.THROW;
+import static diarsid.jdbc.api.TransactionOptions.MemoEviction.BY_UPDATED_TABLE;
+import static diarsid.jdbc.impl.ColumnarRowBlock.mustBeValidBlockSize;
+import static diarsid.jdbc.impl.ParallelRowsProcessing.mustBeValidParallelism;
+import static diarsid.jdbc.impl.PipelinedRowsIteration.mustBeValidDepth;
+import static diarsid.jdbc.impl.RowsIteration.processAndProceed;
 import static diarsid.jdbc.impl.RowsIteration.whenRowsIterationAwareDoAfter;
 import static diarsid.jdbc.impl.RowsIteration.whenRowsIterationAwareDoBefore;
 import static diarsid.support.time.TimeSupport.timeMillisAfter;
 
 
-public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTransaction {
+public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTransaction, Cancellable {
     
     private static final Logger logger = LoggerFactory.getLogger(JdbcTransactionReal.class);
 
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    /* about 73 years */
+    private static final long MAX_REMAINING_NANOS = Long.MAX_VALUE / 4;
+    private static final Duration MAX_REMAINING = Duration.ofNanos(MAX_REMAINING_NANOS);
+    private static final long FINISHING_AWAIT_MILLIS = 10_000;
+
     private static class RealRow implements Row, Closeable {
 
         private final JdbcTransactionReal tx;
         private ResultSet rs;
+        private RowSnapshot.Columns snapshotColumns;
 
         public RealRow(JdbcTransactionReal tx) {
             this.tx = tx;
@@ -70,11 +102,13 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
 
         Closeable set(ResultSet rs) {
             this.rs = rs;
+            this.snapshotColumns = null;
             return this;
         }
 
         void unset() {
             this.rs = null;
+            this.snapshotColumns = null;
         }
 
         @Override
@@ -86,8 +120,7 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 logger.error(format(
                         "Exception occurred during Row processing with column: %s: ", columnLabel));
                 logger.error("", ex);
-                this.tx.fail();
-                this.tx.rollbackAnd(CLOSE);
+                this.tx.failAndRollback();
                 throw new JdbcException(ex);
             }
         }
@@ -114,8 +147,7 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                         "Exception occurred during Row processing with column: %s: ",
                         columnLabel));
                 logger.error("", ex);
-                this.tx.fail();
-                this.tx.rollbackAnd(CLOSE);
+                this.tx.failAndRollback();
                 throw new JdbcException(ex);
             }
         }
@@ -129,8 +161,22 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 logger.error(format(
                         "Exception occurred during Row processing with column: %s: ", columnLabel));
                 logger.error("", ex);
-                this.tx.fail();
-                this.tx.rollbackAnd(CLOSE);
+                this.tx.failAndRollback();
+                throw new JdbcException(ex);
+            }
+        }
+
+        @Override
+        public Row snapshot() {
+            try {
+                if ( isNull(this.snapshotColumns) ) {
+                    this.snapshotColumns = RowSnapshot.Columns.of(this.rs, this.tx.resources.sqlTypeToJavaTypeConverter);
+                }
+                return this.snapshotColumns.copyCurrentRow(this.rs);
+            }
+            catch (Throwable ex) {
+                logger.error("Exception occurred during Row snapshot: ", ex);
+                this.tx.failAndRollback();
                 throw new JdbcException(ex);
             }
         }
@@ -141,7 +187,38 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
         }
     }
     
-    private final Connection connection;
+    public static final class AcquiredConnection {
+
+        private final Connection connection;
+        private final TransactionOptions restoringOptions;
+
+        /**
+         * @param connection connection prepared for transaction, i.e. with disabled autocommit
+         *                   and applied transaction options
+         * @param restoringOptions options describing connection state before transaction options
+         *                         have been applied
+         */
+        public AcquiredConnection(Connection connection, TransactionOptions restoringOptions) {
+            this.connection = connection;
+            this.restoringOptions = restoringOptions;
+        }
+    }
+
+    private static final class UsageLock extends ReentrantLock {
+
+        private Thread holder() {
+            return super.getOwner();
+        }
+    }
+
+    private final Supplier<AcquiredConnection> connectionAcquiring;
+    /* volatile as it is aborted by watchdog from other thread */
+    private volatile Connection connection;
+    private final TransactionOptions options;
+    private TransactionOptions restoringOptions;
+    /* System.nanoTime() based, meaningful only if hasDeadline is true */
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
     private final UUID uuid;
     private final LocalDateTime created;
     private final JdbcImplStaticResources resources;
@@ -149,18 +226,68 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
     private final boolean sqlHistoryEnabled;
     private final boolean replaceParamsInSqlHistory;
     private final RealRow row;
+    private final Deque<Savepoint> savepoints;
+    private final QueryMemo memo;
+    private final DeferredWrites deferredWrites;
+    private final boolean skipCommitWithoutWrites;
+    private boolean writesExecuted;
+    /* set while rows are read ahead of their processing by other threads, see doQueryPipelined() and doQueryParallel() */
+    private volatile boolean detachedRowsProcessing;
     private State state;
+    /* held by every operation and by borrowing thread, see guarded() and borrow() */
+    private final UsageLock usage;
+    private final OpenTransactionsRegistry registry;
+    private final Thread ownerThread;
+    private final long createdNanos;
+    private volatile String currentSql;
+    private volatile Statement currentStatement;
+    private volatile boolean cancelled;
+    /* accessed only by thread that uses transaction, unlike cancelled */
+    private boolean cancellationRecorded;
+    private volatile String abortReason;
+    /* set if transaction is finished while it is used by other thread, see guardedFinishing() */
+    private volatile boolean closingOnGiveBack;
 
     public Runnable onCloseCallback;
 
+    /**
+     * @param connectionAcquiring acquires connection for this transaction
+     * @param lazy if true, connection is acquired on the first operation that
+     *             needs it, so that transaction without any operations neither
+     *             borrows a connection nor commits; otherwise connection is
+     *             acquired immediately
+     * @param registry registry of open transactions, this transaction is kept in it
+     *                 until its connection is closed; may be null
+     */
     public JdbcTransactionReal(
-            Connection connection,
+            Supplier<AcquiredConnection> connectionAcquiring,
+            boolean lazy,
+            TransactionOptions options,
             JdbcImplStaticResources resources,
             boolean sqlHistoryEnabled,
-            boolean replaceParamsInSqlHistory) {
-        this.connection = connection;
+            boolean replaceParamsInSqlHistory,
+            boolean skipCommitWithoutWrites,
+            OpenTransactionsRegistry registry) {
+        this.connectionAcquiring = connectionAcquiring;
+        this.skipCommitWithoutWrites = skipCommitWithoutWrites;
+        this.writesExecuted = false;
+        this.connection = null;
+        this.options = options;
+        this.restoringOptions = null;
+        long remainingNanos = remainingNanosOf(options);
+        this.hasDeadline = remainingNanos != NO_DEADLINE;
+        this.deadlineNanos = System.nanoTime() + remainingNanos;
         this.uuid = randomUUID();
         this.created = now();
+        this.createdNanos = System.nanoTime();
+        this.ownerThread = Thread.currentThread();
+        this.currentSql = null;
+        this.currentStatement = null;
+        this.cancelled = false;
+        this.cancellationRecorded = false;
+        this.abortReason = null;
+        this.closingOnGiveBack = false;
+        this.registry = registry;
         this.resources = resources;
         this.sqlHistoryEnabled = sqlHistoryEnabled;
         this.replaceParamsInSqlHistory = replaceParamsInSqlHistory;
@@ -173,17 +300,554 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
         }
 
         this.row = new RealRow(this);
+        this.savepoints = new ArrayDeque<>();
+
+        if ( options.hasQueryMemo() ) {
+            this.memo = new QueryMemo(options.memoEviction().equalTo(BY_UPDATED_TABLE));
+        }
+        else {
+            this.memo = null;
+        }
+
+        this.deferredWrites = new DeferredWrites();
+        this.usage = new UsageLock();
         this.state = OPEN;
+
+        if ( ! lazy ) {
+            this.acquireConnection();
+        }
+
+        if ( nonNull(this.registry) ) {
+            this.registry.register(this);
+        }
+    }
+
+    private Connection connection() {
+        if ( isNull(this.connection) ) {
+            this.mustBeValid();
+            this.acquireConnection();
+        }
+
+        return this.connection;
+    }
+
+    private void acquireConnection() {
+        AcquiredConnection acquired;
+        try {
+            acquired = this.connectionAcquiring.get();
+        }
+        catch (RuntimeException e) {
+            this.fail();
+            if ( this.sqlHistoryEnabled ) {
+                this.sqlHistory.add(e);
+            }
+            throw e;
+        }
+        this.connection = acquired.connection;
+        this.restoringOptions = acquired.restoringOptions;
+    }
+
+    public boolean isConnectionAcquired() {
+        return nonNull(this.connection);
     }
 
     public void fail() {
         this.state = FAILED;
     }
 
+    /*
+     * Rolls back the whole transaction and closes it if there are no nested
+     * savepoints. Otherwise rolls back only to the innermost savepoint and
+     * leaves transaction open, so the enclosing work is able to proceed.
+     */
+    private void failAndRollback() {
+        if ( this.savepoints.isEmpty() ) {
+            this.fail();
+            this.rollbackAnd(CLOSE);
+        }
+        else {
+            this.rollbackTo(this.savepoints.peek());
+        }
+    }
+
+    public boolean isNested() {
+        return ! this.savepoints.isEmpty();
+    }
+
+    public void openSavepoint() {
+        this.guarded(() -> this.openSavepointExclusively());
+    }
+
+    private void openSavepointExclusively() {
+        this.mustBeValid();
+        this.flushDeferred();
+
+        try {
+            Savepoint savepoint = this.connection().setSavepoint();
+            this.savepoints.push(savepoint);
+
+            if ( this.sqlHistoryEnabled ) {
+                this.sqlHistory.add(format("savepoint opened, nesting level: %s", this.savepoints.size()));
+            }
+        }
+        catch (Throwable e) {
+            logger.error("Exception occurred during savepoint opening: ", e);
+
+            if ( this.sqlHistoryEnabled ) {
+                this.sqlHistory.add(e);
+            }
+
+            this.failAndRollback();
+            throw new JdbcException(e);
+        }
+    }
+
+    public void releaseSavepoint() {
+        this.guarded(() -> this.releaseSavepointExclusively());
+    }
+
+    /*
+     * Deferred updates queued after savepoint has been opened are flushed before it
+     * is released, so that their failure is rolled back to this savepoint instead of
+     * the enclosing one. Transaction is left open and savepoint is removed in this case.
+     */
+    private void releaseSavepointExclusively() {
+        if ( this.savepoints.isEmpty() ) {
+            if ( this.state.notEqualTo(OPEN) ) {
+                /* savepoints are cleared when transaction is finished */
+                return;
+            }
+            throw new ForbiddenTransactionOperation("There is no savepoint to release!");
+        }
+
+        if ( this.state.equalTo(OPEN) ) {
+            int nesting = this.savepoints.size();
+            try {
+                this.flushDeferred();
+            }
+            catch (RuntimeException e) {
+                /* flush failure has already rolled transaction back to innermost savepoint */
+                if ( this.savepoints.size() == nesting ) {
+                    this.savepoints.pop();
+                }
+                throw e;
+            }
+        }
+
+        Savepoint savepoint = this.savepoints.pop();
+
+        if ( this.state.notEqualTo(OPEN) ) {
+            return;
+        }
+
+        try {
+            this.connection.releaseSavepoint(savepoint);
+        }
+        catch (Throwable e) {
+            logger.warn("cannot release savepoint: ", e);
+            // savepoint will be released anyway when
+            // transaction ends, just proceed.
+        }
+
+        if ( this.sqlHistoryEnabled ) {
+            this.sqlHistory.add(format("savepoint released, nesting level: %s", this.savepoints.size() + 1));
+        }
+    }
+
+    public void rollbackToSavepoint() {
+        this.guarded(() -> this.rollbackToSavepointExclusively());
+    }
+
+    private void rollbackToSavepointExclusively() {
+        if ( this.savepoints.isEmpty() ) {
+            throw new ForbiddenTransactionOperation("There is no savepoint to rollback to!");
+        }
+
+        if ( this.state.notEqualTo(OPEN) ) {
+            this.savepoints.pop();
+            return;
+        }
+
+        this.rollbackTo(this.savepoints.peek());
+        this.releaseSavepoint();
+    }
+
+    private void rollbackTo(Savepoint savepoint) {
+        this.invalidateMemo();
+        this.discardDeferred();
+        long start = currentTimeMillis();
+        try {
+            this.connection.rollback(savepoint);
+
+            if ( this.sqlHistoryEnabled ) {
+                this.sqlHistory.addRollback(timeMillisAfter(start));
+                this.sqlHistory.add(format("rolled back to savepoint, nesting level: %s", this.savepoints.size()));
+            }
+        }
+        catch (Throwable e) {
+            logger.error("Exception occurred during rollback to savepoint: ", e);
+
+            if ( this.sqlHistoryEnabled ) {
+                this.sqlHistory.add(e);
+            }
+
+            this.savepoints.clear();
+            this.fail();
+            this.rollbackAnd(CLOSE);
+            throw new JdbcException(e);
+        }
+    }
+
     private void mustBeValid() {
         if ( this.state.notEqualTo(OPEN) ) {
             throw new JdbcException("Transaction is " + this.state);
         }
+        this.mustNotBeDetached();
+        this.mustBeBeforeDeadline();
+        this.mustNotBeAborted();
+        this.mustNotBeCancelled();
+    }
+
+    private void mustNotBeAborted() {
+        String reason = this.abortReason;
+        if ( isNull(reason) ) {
+            return;
+        }
+
+        String message = "Transaction is aborted: " + reason;
+        this.recordInHistory(message);
+        this.savepoints.clear();
+        this.fail();
+        this.rollbackAnd(CLOSE);
+        throw new JdbcException(message);
+    }
+
+    /*
+     * Called by other thread, e.g. by watchdog. Connection is aborted immediately
+     * using Connection.abort(), which is safe to call concurrently with statement
+     * execution, so that locks and connection are released by database. Owner
+     * thread gets exception on the current or the next operation.
+     */
+    public void abort(String reason) {
+        this.abortReason = reason;
+        Connection abortedConnection = this.connection;
+
+        if ( nonNull(abortedConnection) ) {
+            try {
+                abortedConnection.abort(Runnable::run);
+            }
+            catch (Throwable e) {
+                logger.warn("cannot abort connection: ", e);
+            }
+        }
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - this.createdNanos;
+    }
+
+    public OpenTransactionInfo info() {
+        Thread usingThread = this.usage.holder();
+        Thread workingThread = nonNull(usingThread) ? usingThread : this.ownerThread;
+
+        return new OpenTransactionInfo(
+                this.uuid,
+                this.created,
+                workingThread.getName(),
+                this.currentSql,
+                Duration.ofNanos(this.elapsedNanos()),
+                this.state);
+    }
+
+    /*
+     * Every operation, of the owner thread as well as of any other one, holds
+     * usage lock for its whole duration, so that connection, statements and state
+     * of transaction are never used by two threads at once. Operation does not wait
+     * for the lock - if it is held by other thread, operation is forbidden.
+     */
+    private <T> T guarded(Supplier<T> operation) {
+        this.beginOperation();
+        try {
+            return operation.get();
+        }
+        finally {
+            this.usage.unlock();
+        }
+    }
+
+    private void guarded(Runnable operation) {
+        this.beginOperation();
+        try {
+            operation.run();
+        }
+        finally {
+            this.usage.unlock();
+        }
+    }
+
+    private void beginOperation() {
+        if ( this.usage.tryLock() ) {
+            return;
+        }
+
+        this.mustNotBeDetached();
+
+        throw new ForbiddenTransactionOperation(format(
+                "Transaction is used by thread %s at the moment!", this.usingThreadName()));
+    }
+
+    private void mustNotBeDetached() {
+        if ( this.detachedRowsProcessing ) {
+            throw new ForbiddenTransactionOperation("Transaction cannot be used until pipelined or parallel query is done!");
+        }
+    }
+
+    private String usingThreadName() {
+        Thread usingThread = this.usage.holder();
+        return nonNull(usingThread) ? usingThread.getName() : "<unknown>";
+    }
+
+    /*
+     * Commit, rollback and close are not forbidden while transaction is used by other
+     * thread, they wait for it, but not longer than FINISHING_AWAIT_MILLIS. If it is still
+     * used after that, connection is aborted and transaction is rolled back and closed by
+     * the thread that uses it as soon as it gives transaction back, see giveBack(), so
+     * that connection does not leak. Returns false in this case.
+     */
+    private boolean guardedFinishing(Runnable finishing) {
+        if ( ! this.usage.isHeldByCurrentThread() ) {
+            this.mustNotBeDetached();
+
+            if ( this.closingOnGiveBack ) {
+                return false;
+            }
+
+            if ( ! this.awaitUsage() ) {
+                return false;
+            }
+        }
+        else {
+            this.usage.lock();
+        }
+
+        try {
+            finishing.run();
+            return true;
+        }
+        finally {
+            this.usage.unlock();
+        }
+    }
+
+    private boolean awaitUsage() {
+        try {
+            if ( this.usage.tryLock(FINISHING_AWAIT_MILLIS, MILLISECONDS) ) {
+                return true;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String usingThreadName = this.usingThreadName();
+        this.closingOnGiveBack = true;
+
+        /* transaction may have been given back right before the flag is set */
+        if ( this.usage.tryLock() ) {
+            this.closingOnGiveBack = false;
+            return true;
+        }
+
+        String reason = format(
+                "transaction is finished by thread %s while it is used by thread %s",
+                Thread.currentThread().getName(), usingThreadName);
+        logger.warn(reason);
+        this.abort(reason);
+        return false;
+    }
+
+    /*
+     * Hands transaction over to the current thread, waiting while operation of
+     * other thread is in progress or while it is borrowed by other thread. Until
+     * it is returned, any operation of any other thread, including the thread that
+     * has opened transaction, is forbidden. Thread that has borrowed transaction
+     * must not be awaited from within operation of the same transaction, e.g. from
+     * RowOperation, as it waits for that operation to finish.
+     */
+    public void borrow() {
+        this.usage.lock();
+    }
+
+    public void giveBack() {
+        if ( ! this.usage.isHeldByCurrentThread() ) {
+            throw new ForbiddenTransactionOperation("Transaction is not borrowed by current thread!");
+        }
+
+        try {
+            if ( this.closingOnGiveBack && this.state.equalToAny(OPEN, FAILED) ) {
+                this.rollbackAndExclusively(CLOSE);
+            }
+        }
+        catch (Throwable e) {
+            logger.error("cannot close transaction given back after it has been finished by other thread: ", e);
+        }
+        finally {
+            this.usage.unlock();
+        }
+    }
+
+    public TransactionOptions options() {
+        return this.options;
+    }
+
+    private PreparedStatement prepareStatement(String sql) throws SQLException {
+        this.currentSql = sql;
+        return this.cancellable(this.withQueryTimeout(this.connection().prepareStatement(sql)));
+    }
+
+    private PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        this.currentSql = sql;
+        return this.cancellable(this.withQueryTimeout(this.connection().prepareStatement(sql, autoGeneratedKeys)));
+    }
+
+    private Statement createStatement(String sql) throws SQLException {
+        this.currentSql = sql;
+        return this.cancellable(this.withQueryTimeout(this.connection().createStatement()));
+    }
+
+    private <S extends Statement> S cancellable(S statement) {
+        this.currentStatement = statement;
+        return statement;
+    }
+
+    /* cancellation and interruption are checked before every row */
+    private boolean nextRow(ResultSet rs) throws SQLException {
+        this.mustNotBeCancelled();
+        return rs.next();
+    }
+
+    private void mustNotBeCancelled() {
+        if ( this.cancelled ) {
+            this.recordCancellation();
+            throw new OperationCancelledException("Transaction is cancelled!");
+        }
+
+        if ( Thread.currentThread().isInterrupted() ) {
+            throw new OperationCancelledException("Transaction operation is stopped - thread is interrupted!");
+        }
+    }
+
+    /* SQL history is not thread-safe, so that cancellation is recorded by thread that observes it */
+    private void recordCancellation() {
+        if ( ! this.cancellationRecorded ) {
+            this.cancellationRecorded = true;
+            this.recordInHistory("cancellation requested");
+        }
+    }
+
+    /*
+     * Called from any thread. Statement that is executing at the moment is cancelled
+     * by driver, if supported, and every further operation of transaction fails.
+     * Only sets flag and cancels statement, transaction itself is not touched here.
+     */
+    @Override
+    public void cancel() {
+        this.cancelled = true;
+        Statement statement = this.currentStatement;
+
+        if ( nonNull(statement) ) {
+            try {
+                statement.cancel();
+            }
+            catch (Throwable e) {
+                logger.debug("cannot cancel statement: ", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    @Override
+    public Cancellable cancellation() {
+        return this;
+    }
+
+    /*
+     * Time remaining to the nearest of timeout and deadline. It is clamped, so that
+     * it neither overflows nor breaks System.nanoTime() differences. Timeout or deadline
+     * that is farther than MAX_REMAINING_NANOS is the same as no deadline at all.
+     */
+    private static long remainingNanosOf(TransactionOptions options) {
+        long remaining = NO_DEADLINE;
+
+        if ( options.hasTimeout() ) {
+            remaining = Math.min(remaining, clampedNanosOf(options.timeout().get()));
+        }
+
+        if ( options.hasDeadline() ) {
+            remaining = Math.min(remaining, clampedNanosOf(Duration.between(Instant.now(), options.deadline().get())));
+        }
+
+        return remaining;
+    }
+
+    private static long clampedNanosOf(Duration duration) {
+        if ( duration.compareTo(MAX_REMAINING) > 0 ) {
+            return NO_DEADLINE;
+        }
+
+        if ( duration.compareTo(MAX_REMAINING.negated()) < 0 ) {
+            return -MAX_REMAINING_NANOS;
+        }
+
+        return duration.toNanos();
+    }
+
+    /*
+     * Fails the whole transaction, even if it is nested in savepoints, because
+     * no enclosing work is able to proceed after the deadline anyway.
+     */
+    private void mustBeBeforeDeadline() {
+        if ( ! this.hasDeadline ) {
+            return;
+        }
+
+        long overdueNanos = System.nanoTime() - this.deadlineNanos;
+        if ( overdueNanos < 0 ) {
+            return;
+        }
+
+        String message = format("Transaction deadline is exceeded by %s ms!", overdueNanos / 1_000_000);
+        logger.warn(message);
+        this.recordInHistory(message);
+        this.savepoints.clear();
+        this.fail();
+        this.rollbackAnd(CLOSE);
+        throw new TransactionDeadlineExceededException(message);
+    }
+
+    /* query timeout is not greater than time remaining to the deadline, rounded up to whole seconds */
+    private int queryTimeoutSeconds() {
+        long remainingNanos = this.deadlineNanos - System.nanoTime();
+        long remainingSeconds = (remainingNanos + 999_999_999L) / 1_000_000_000L;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, remainingSeconds));
+    }
+
+    private <S extends Statement> S withQueryTimeout(S statement) throws SQLException {
+        if ( this.hasDeadline ) {
+            try {
+                statement.setQueryTimeout(this.queryTimeoutSeconds());
+            }
+            catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+
+        return statement;
     }
 
     @Override
@@ -203,8 +867,12 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
      */
     @Override
     public void close() {
+        this.guardedFinishing(() -> this.closeExclusively());
+    }
+
+    private void closeExclusively() {
         try {
-            if ( ! this.connection.isClosed() ) {
+            if ( isNull(this.connection) || ! this.connection.isClosed() ) {
                 if ( this.state.equalTo(OPEN) ) {
                     this.commitAndClose();
                 }
@@ -243,6 +911,10 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
     }
 
     private void restoreAutoCommitSafely() {
+        if ( isNull(this.connection) ) {
+            return;
+        }
+
         try {
             this.connection.setAutoCommit(true);
         }
@@ -252,9 +924,32 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
             // no actions, just proceed and try to close
             // connection.
         }
+
+        this.restoreOptionsSafely();
+    }
+
+    private void restoreOptionsSafely() {
+        try {
+            if ( this.options.isReadOnly() && ! this.restoringOptions.isReadOnly() ) {
+                this.connection.setReadOnly(false);
+            }
+
+            if ( this.restoringOptions.isolation().isNotDefault() ) {
+                this.connection.setTransactionIsolation(this.restoringOptions.isolation().jdbcLevel());
+            }
+        }
+        catch (Throwable e) {
+            logger.warn("cannot restore connection read-only mode or isolation level: ", e);
+            // no actions, just proceed and try to close
+            // connection.
+        }
     }
     
     private void rollbackTransaction() {
+        if ( isNull(this.connection) ) {
+            return;
+        }
+
         try {
             this.connection.rollback();
         }
@@ -268,7 +963,10 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
     
     private void closeConnectionAnyway() {
         try {
-            if ( ! this.connection.isClosed() ) {
+            if ( isNull(this.connection) ) {
+                this.recordInHistory("connection has not been acquired - transaction has not executed any operation");
+            }
+            else if ( ! this.connection.isClosed() ) {
                 this.connection.close();
             }
         }
@@ -280,6 +978,9 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                     "Program will be closed");
         }
         finally {
+            if ( nonNull(this.registry) ) {
+                this.registry.unregister(this);
+            }
             if ( nonNull(this.onCloseCallback) ) {
                 try {
                     this.onCloseCallback.run();
@@ -294,6 +995,14 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
     
     @Override
     public void rollbackAnd(ThenDo thenDo) {
+        boolean finished = this.guardedFinishing(() -> this.rollbackAndExclusively(thenDo));
+
+        if ( ! finished && nonNull(thenDo) && thenDo.equalTo(THROW) ) {
+            throw new TransactionTerminationException("transaction has been terminated normally.");
+        }
+    }
+
+    private void rollbackAndExclusively(ThenDo thenDo) {
         if ( isNull(thenDo) ) {
             return;
         }
@@ -306,6 +1015,12 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
             throw new ForbiddenTransactionOperation("Transaction is already committed!");
         }
 
+        this.invalidateMemo();
+        this.discardDeferred();
+        if ( thenDo.notEqualTo(PROCEED) ) {
+            this.recordMemoStatistics();
+        }
+
         long start = currentTimeMillis();
         this.rollbackTransaction();
         long duration = timeMillisAfter(start);
@@ -321,11 +1036,13 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 break;
             case CLOSE:
                 this.state = CLOSED_ROLLBACKED;
+                this.savepoints.clear();
                 this.restoreAutoCommitSafely();
                 this.closeConnectionAnyway();
                 break;
             case THROW:
                 this.state = CLOSED_ROLLBACKED;
+                this.savepoints.clear();
                 this.restoreAutoCommitSafely();
                 this.closeConnectionAnyway();
                 throw new TransactionTerminationException("transaction has been terminated normally.");
@@ -336,15 +1053,29 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
 
     @Override
     public void rollbackAndProceed() {
-        this.rollbackAnd(PROCEED);
+        this.guarded(() -> this.rollbackAndProceedExclusively());
+    }
+
+    private void rollbackAndProceedExclusively() {
+        if ( this.savepoints.isEmpty() ) {
+            this.rollbackAnd(PROCEED);
+        }
+        else {
+            this.rollbackTo(this.savepoints.peek());
+        }
     }
     
     @Override
     public int countQueryResults(String sql) {
+        return this.guarded(() -> this.countQueryResultsExclusively(sql));
+    }
+
+    private int countQueryResultsExclusively(String sql) {
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (Statement statement = this.connection.createStatement();
+        try (Statement statement = this.createStatement(sql);
              ResultSet resultSet = statement.executeQuery(sql);) {
 
             int resultingRowsQty = this.count(resultSet);
@@ -367,29 +1098,237 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }         
     }
     
     @Override
     public int countQueryResults(String sql, Object... params) {
+        return this.guarded(() -> this.countQueryResultsExclusively(sql, params));
+    }
+
+    private int countQueryResultsExclusively(String sql, Object... params) {
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              ResultSet rs = ps.executeQuery()) {
 
-            int resultingRowsQty = this.count(rs);
+            int resultingRowsQty = this.count(rs);
+
+            if ( this.sqlHistoryEnabled ) {
+                long millis = timeMillisAfter(start);
+                this.sqlHistory.add(sql, params, millis);
+            }
+
+            return resultingRowsQty;
+        }
+        catch (Throwable e) {
+            logger.error("Exception occurred during query: ");
+            logger.error(sql);
+            logger.error("", e);
+
+            if ( this.sqlHistoryEnabled ) {
+                long millis = timeMillisAfter(start);
+                this.sqlHistory.add(sql, params, millis);
+                this.sqlHistory.add(e);
+            }
+
+            this.failAndRollback();
+            throw new JdbcException(e);
+        }
+    }
+    
+    @Override
+    public int countQueryResults(String sql, List params) {
+        return this.guarded(() -> this.countQueryResultsExclusively(sql, params));
+    }
+
+    private int countQueryResultsExclusively(String sql, List params) {
+        this.mustBeValid();
+        this.flushDeferred();
+        long start = currentTimeMillis();
+
+        try (var ps = this.prepareStatement(sql);
+             var stub = this.resources.paramsSetter.setParameters(ps, params);
+             ResultSet rs = ps.executeQuery()) {
+
+            int resultingRowsQty = this.count(rs);
+
+            if ( this.sqlHistoryEnabled ) {
+                long millis = timeMillisAfter(start);
+                this.sqlHistory.add(sql, params, millis);
+            }
+
+            return resultingRowsQty;
+        }
+        catch (Throwable e) {
+            logger.error("Exception occurred during query: ");
+            logger.error(sql);
+            logger.error("", e);
+
+            if ( this.sqlHistoryEnabled ) {
+                long millis = timeMillisAfter(start);
+                this.sqlHistory.add(sql, params, millis);
+                this.sqlHistory.add(e);
+            }
+
+            this.failAndRollback();
+            throw new JdbcException(e);
+        }
+    }
+    
+    private int count(ResultSet rs) throws SQLException {
+        int count = 0;
+        while ( this.nextRow(rs) ) {
+            count++;
+        }
+        return count;
+    }
+    
+    private static String concatenateParams(List<Object> params) {
+        return params.stream()
+                .map(Object::toString)
+                .collect(Collectors.joining(", "));
+    }
+    
+    @Override
+    public void doQuery(RowOperation operation, String sql) {
+        this.guarded(() -> this.doQueryExclusively(operation, sql));
+    }
+
+    private void doQueryExclusively(RowOperation operation, String sql) {
+        this.mustBeValid();
+        this.flushDeferred();
+        long start = currentTimeMillis();
+
+        try (var ps = this.prepareStatement(sql);
+             var stub0 = this.resources.paramsSetter.setParameters(ps);
+             var rs = ps.executeQuery();
+             var stub1 = this.row.set(rs)) {
+
+            whenRowsIterationAwareDoBefore(operation);
+
+            while ( this.nextRow(rs) ) {
+                if ( ! processAndProceed(operation, this.row) ) {
+                    break;
+                }
+            }
+
+            whenRowsIterationAwareDoAfter(operation);
+
+            if ( this.sqlHistoryEnabled ) {
+                long millis = timeMillisAfter(start);
+                this.sqlHistory.add(sql, millis);
+            }
+        }
+        catch (Throwable e) {
+            logger.error("Exception occurred during query: ");
+            logger.error(sql);
+            logger.error("", e);
+
+            if ( this.sqlHistoryEnabled ) {
+                long millis = timeMillisAfter(start);
+                this.sqlHistory.add(sql, millis);
+                this.sqlHistory.add(e);
+            }
+
+            this.failAndRollback();
+            throw new JdbcException(e);
+        }
+    }
+    
+    @Override
+    public void doQuery(RowOperation operation, String sql, List params) {
+        this.guarded(() -> this.doQueryExclusively(operation, sql, params));
+    }
+
+    private void doQueryExclusively(RowOperation operation, String sql, List params) {
+        this.mustBeValid();
+        this.flushDeferred();
+        long start = currentTimeMillis();
+
+        try (var ps = this.prepareStatement(sql);
+             var stub0 = this.resources.paramsSetter.setParameters(ps, params);
+             var rs = ps.executeQuery();
+             var row = this.row.set(rs)) {
+
+            whenRowsIterationAwareDoBefore(operation);
+
+            while ( this.nextRow(rs) ) {
+                if ( ! processAndProceed(operation, this.row) ) {
+                    break;
+                }
+            }
+
+            whenRowsIterationAwareDoAfter(operation);
+
+            if ( this.sqlHistoryEnabled ) {
+                long millis = timeMillisAfter(start);
+                this.sqlHistory.add(sql, params, millis);
+            }
+        }
+        catch (Throwable e) {
+            logger.error("Exception occurred during query: ");
+            logger.error(sql);
+            logger.error("", e);
+
+            if ( this.sqlHistoryEnabled ) {
+                long millis = timeMillisAfter(start);
+                this.sqlHistory.add(sql, params, millis);
+                this.sqlHistory.add(e);
+            }
+
+            this.failAndRollback();
+            throw new JdbcException(e);
+        }
+    }
+    
+    @Override
+    public void doQueryPipelined(RowOperation operation, int depth, String sql, Object... params) {
+        this.doQueryPipelined(operation, depth, sql, asList(params));
+    }
+
+    @Override
+    public void doQueryPipelined(RowOperation operation, int depth, String sql, List params) {
+        this.guarded(() -> this.doQueryPipelinedExclusively(operation, depth, sql, params));
+    }
+
+    private void doQueryPipelinedExclusively(RowOperation operation, int depth, String sql, List params) {
+        mustBeValidDepth(depth);
+        this.mustBeValid();
+        this.flushDeferred();
+        long start = currentTimeMillis();
+
+        try (var ps = this.prepareStatement(sql);
+             var stub0 = this.resources.paramsSetter.setParameters(ps, params);
+             var rs = ps.executeQuery()) {
+
+            whenRowsIterationAwareDoBefore(operation);
+
+            this.detachedRowsProcessing = true;
+            try {
+                PipelinedRowsIteration.iterate(
+                        rs,
+                        operation,
+                        depth,
+                        this.resources.rowsReaders(),
+                        this.resources.sqlTypeToJavaTypeConverter,
+                        this::isCancelled);
+            }
+            finally {
+                this.detachedRowsProcessing = false;
+            }
+
+            whenRowsIterationAwareDoAfter(operation);
 
             if ( this.sqlHistoryEnabled ) {
                 long millis = timeMillisAfter(start);
                 this.sqlHistory.add(sql, params, millis);
             }
-
-            return resultingRowsQty;
         }
         catch (Throwable e) {
             logger.error("Exception occurred during query: ");
@@ -402,29 +1341,52 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
-    
+
     @Override
-    public int countQueryResults(String sql, List params) {
+    public void doQueryParallel(RowOperation operation, int parallelism, String sql, Object... params) {
+        this.doQueryParallel(operation, parallelism, sql, asList(params));
+    }
+
+    @Override
+    public void doQueryParallel(RowOperation operation, int parallelism, String sql, List params) {
+        this.guarded(() -> this.doQueryParallelExclusively(operation, parallelism, sql, params));
+    }
+
+    private void doQueryParallelExclusively(RowOperation operation, int parallelism, String sql, List params) {
+        mustBeValidParallelism(parallelism);
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
-             var stub = this.resources.paramsSetter.setParameters(ps, params);
-             ResultSet rs = ps.executeQuery()) {
+        try (var ps = this.prepareStatement(sql);
+             var stub0 = this.resources.paramsSetter.setParameters(ps, params);
+             var rs = ps.executeQuery()) {
 
-            int resultingRowsQty = this.count(rs);
+            whenRowsIterationAwareDoBefore(operation);
+
+            this.detachedRowsProcessing = true;
+            try {
+                ParallelRowsProcessing.process(
+                        rs,
+                        operation,
+                        this.resources.parallelRowsPool(parallelism),
+                        this::nextRow,
+                        this.resources.sqlTypeToJavaTypeConverter);
+            }
+            finally {
+                this.detachedRowsProcessing = false;
+            }
+
+            whenRowsIterationAwareDoAfter(operation);
 
             if ( this.sqlHistoryEnabled ) {
                 long millis = timeMillisAfter(start);
                 this.sqlHistory.add(sql, params, millis);
             }
-
-            return resultingRowsQty;
         }
         catch (Throwable e) {
             logger.error("Exception occurred during query: ");
@@ -437,48 +1399,51 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
-    
-    private static int count(ResultSet rs) throws SQLException {
-        int count = 0;
-        while ( rs.next() ) {            
-            count++;
-        }
-        return count;
-    }
-    
-    private static String concatenateParams(List<Object> params) {
-        return params.stream()
-                .map(Object::toString)
-                .collect(Collectors.joining(", "));
+
+    @Override
+    public <T> List<T> doQueryParallelAndConvert(RowGetter<T> conversion, int parallelism, String sql, Object... params) {
+        return this.doQueryParallelAndConvert(conversion, parallelism, sql, asList(params));
     }
-    
+
     @Override
-    public void doQuery(RowOperation operation, String sql) {
+    public <T> List<T> doQueryParallelAndConvert(RowGetter<T> conversion, int parallelism, String sql, List params) {
+        return this.guarded(() -> this.doQueryParallelAndConvertExclusively(conversion, parallelism, sql, params));
+    }
+
+    private <T> List<T> doQueryParallelAndConvertExclusively(RowGetter<T> conversion, int parallelism, String sql, List params) {
+        mustBeValidParallelism(parallelism);
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
-             var stub0 = this.resources.paramsSetter.setParameters(ps);
-             var rs = ps.executeQuery();
-             var stub1 = this.row.set(rs)) {
-
-            whenRowsIterationAwareDoBefore(operation);
+        try (var ps = this.prepareStatement(sql);
+             var stub0 = this.resources.paramsSetter.setParameters(ps, params);
+             var rs = ps.executeQuery()) {
 
-            while ( rs.next() ) {
-                operation.process(this.row);
+            List<T> results;
+            this.detachedRowsProcessing = true;
+            try {
+                results = ParallelRowsProcessing.convert(
+                        rs,
+                        conversion,
+                        this.resources.parallelRowsPool(parallelism),
+                        this::nextRow,
+                        this.resources.sqlTypeToJavaTypeConverter);
+            }
+            finally {
+                this.detachedRowsProcessing = false;
             }
-
-            whenRowsIterationAwareDoAfter(operation);
 
             if ( this.sqlHistoryEnabled ) {
                 long millis = timeMillisAfter(start);
-                this.sqlHistory.add(sql, millis);
+                this.sqlHistory.add(sql, params, millis);
             }
+
+            return results;
         }
         catch (Throwable e) {
             logger.error("Exception occurred during query: ");
@@ -487,34 +1452,41 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
 
             if ( this.sqlHistoryEnabled ) {
                 long millis = timeMillisAfter(start);
-                this.sqlHistory.add(sql, millis);
+                this.sqlHistory.add(sql, params, millis);
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
-    
+
     @Override
-    public void doQuery(RowOperation operation, String sql, List params) {
+    public void doQueryInBlocks(RowBlockOperation operation, int blockSize, String sql, Object... params) {
+        this.doQueryInBlocks(operation, blockSize, sql, asList(params));
+    }
+
+    @Override
+    public void doQueryInBlocks(RowBlockOperation operation, int blockSize, String sql, List params) {
+        this.guarded(() -> this.doQueryInBlocksExclusively(operation, blockSize, sql, params));
+    }
+
+    private void doQueryInBlocksExclusively(RowBlockOperation operation, int blockSize, String sql, List params) {
+        mustBeValidBlockSize(blockSize);
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub0 = this.resources.paramsSetter.setParameters(ps, params);
-             var rs = ps.executeQuery();
-             var row = this.row.set(rs)) {
+             var rs = ps.executeQuery()) {
 
-            whenRowsIterationAwareDoBefore(operation);
+            ColumnarRowBlock block = ColumnarRowBlock.allocate(rs, blockSize);
 
-            while ( rs.next() ) {
-                operation.process(this.row);
+            while ( block.fillFrom(rs, this::nextRow) ) {
+                operation.process(block);
             }
 
-            whenRowsIterationAwareDoAfter(operation);
-
             if ( this.sqlHistoryEnabled ) {
                 long millis = timeMillisAfter(start);
                 this.sqlHistory.add(sql, params, millis);
@@ -531,26 +1503,32 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
-    
+
     @Override
     public void doQuery(RowOperation operation, String sql, Object... params) {
+        this.guarded(() -> this.doQueryExclusively(operation, sql, params));
+    }
+
+    private void doQueryExclusively(RowOperation operation, String sql, Object... params) {
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub0 = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();
              var row = this.row.set(rs);) {
 
             whenRowsIterationAwareDoBefore(operation);
 
-            while ( rs.next() ) {
-                operation.process(this.row);
+            while ( this.nextRow(rs) ) {
+                if ( ! processAndProceed(operation, this.row) ) {
+                    break;
+                }
             }
 
             whenRowsIterationAwareDoAfter(operation);
@@ -571,23 +1549,27 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public <T> Stream<T> doQueryAndStream(RowGetter<T> conversion, String sql) {
+        return this.guarded(() -> this.doQueryAndStreamExclusively(conversion, sql));
+    }
+
+    private <T> Stream<T> doQueryAndStreamExclusively(RowGetter<T> conversion, String sql) {
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (Statement st = this.connection.createStatement();
+        try (Statement st = this.createStatement(sql);
              ResultSet rs = st.executeQuery(sql);
              var row = this.row.set(rs)) {
 
             Stream.Builder<T> builder = Stream.builder();
-            while ( rs.next() ) {
+            while ( this.nextRow(rs) ) {
                 builder.accept(conversion.getFrom(this.row));
             }
 
@@ -609,24 +1591,28 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }  
     }
     
     @Override
     public <T> Stream<T> doQueryAndStream(RowGetter<T> conversion, String sql, List params) {
+        return this.guarded(() -> this.doQueryAndStreamExclusively(conversion, sql, params));
+    }
+
+    private <T> Stream<T> doQueryAndStreamExclusively(RowGetter<T> conversion, String sql, List params) {
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();
              var row = this.row.set(rs)) {
 
             Stream.Builder<T> builder = Stream.builder();
-            while ( rs.next() ) {
+            while ( this.nextRow(rs) ) {
                 builder.accept(conversion.getFrom(this.row));
             }
 
@@ -648,24 +1634,28 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public <T> Stream<T> doQueryAndStream(RowGetter<T> conversion, String sql, Object... params) {
+        return this.guarded(() -> this.doQueryAndStreamExclusively(conversion, sql, params));
+    }
+
+    private <T> Stream<T> doQueryAndStreamExclusively(RowGetter<T> conversion, String sql, Object... params) {
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();
              var row = this.row.set(rs)) {
 
             Stream.Builder<T> builder = Stream.builder();
-            while ( rs.next() ) {
+            while ( this.nextRow(rs) ) {
                 builder.accept(conversion.getFrom(this.row));
             }
 
@@ -687,15 +1677,21 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public void useJdbcDirectly(JdbcDirectOperation jdbcOperation) {
+        this.guarded(() -> this.useJdbcDirectlyExclusively(jdbcOperation));
+    }
+
+    private void useJdbcDirectlyExclusively(JdbcDirectOperation jdbcOperation) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.writesExecuted = true;
+        this.invalidateMemo();
         long start = currentTimeMillis();
 
         this.sqlHistory.add(
@@ -703,7 +1699,7 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 "sql history is unreacheable for this operation.");
         try {
             List<AutoCloseable> openedCloseables = new ArrayList<>();
-            Connection proxiedConnection = SqlConnectionProxyFactory.createProxy(this.connection, openedCloseables);
+            Connection proxiedConnection = SqlConnectionProxyFactory.createProxy(this.connection(), openedCloseables);
             jdbcOperation.operateJdbcDirectly(proxiedConnection);
             for ( AutoCloseable resource : openedCloseables ) {
                 resource.close();
@@ -720,18 +1716,22 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         } 
     }
     
     @Override
     public void doQueryAndProcessFirstRow(RowOperation operation, String sql) {
+        this.guarded(() -> this.doQueryAndProcessFirstRowExclusively(operation, sql));
+    }
+
+    private void doQueryAndProcessFirstRowExclusively(RowOperation operation, String sql) {
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub = this.resources.paramsSetter.setParameters(ps);
              var rs = ps.executeQuery();
              var row = this.row.set(rs)) {
@@ -760,18 +1760,22 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public void doQueryAndProcessFirstRow(RowOperation operation, String sql, List params) {
+        this.guarded(() -> this.doQueryAndProcessFirstRowExclusively(operation, sql, params));
+    }
+
+    private void doQueryAndProcessFirstRowExclusively(RowOperation operation, String sql, List params) {
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();
              var row = this.row.set(rs)) {
@@ -800,18 +1804,22 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public void doQueryAndProcessFirstRow(RowOperation operation, String sql, Object... params) {
+        this.guarded(() -> this.doQueryAndProcessFirstRowExclusively(operation, sql, params));
+    }
+
+    private void doQueryAndProcessFirstRowExclusively(RowOperation operation, String sql, Object... params) {
         this.mustBeValid();
+        this.flushDeferred();
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();
              var row = this.row.set(rs)) {
@@ -840,18 +1848,32 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public <T> Optional<T> doQueryAndConvertFirstRow(RowGetter<T> conversion, String sql) {
+        return this.guarded(() -> this.doQueryAndConvertFirstRowExclusively(conversion, sql));
+    }
+
+    private <T> Optional<T> doQueryAndConvertFirstRowExclusively(RowGetter<T> conversion, String sql) {
         this.mustBeValid();
+        this.flushDeferred();
+
+        QueryMemo.Key memoKey = null;
+        if ( nonNull(this.memo) ) {
+            memoKey = this.memo.keyOf(sql, conversion);
+            Optional<T> memoized = this.memo.get(memoKey);
+            if ( nonNull(memoized) ) {
+                return memoized;
+            }
+        }
+
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub = this.resources.paramsSetter.setParameters(ps);
              var rs = ps.executeQuery();
              var row = this.row.set(rs)) {
@@ -868,6 +1890,10 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(sql, millis);
             }
 
+            if ( nonNull(memoKey) ) {
+                this.memo.put(memoKey, optional);
+            }
+
             return optional;
         }
         catch (Throwable e) {
@@ -881,18 +1907,32 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public <T> Optional<T> doQueryAndConvertFirstRow(RowGetter<T> conversion, String sql, List params) {
+        return this.guarded(() -> this.doQueryAndConvertFirstRowExclusively(conversion, sql, params));
+    }
+
+    private <T> Optional<T> doQueryAndConvertFirstRowExclusively(RowGetter<T> conversion, String sql, List params) {
         this.mustBeValid();
+        this.flushDeferred();
+
+        QueryMemo.Key memoKey = null;
+        if ( nonNull(this.memo) ) {
+            memoKey = this.memo.keyOf(sql, params, conversion);
+            Optional<T> memoized = this.memo.get(memoKey);
+            if ( nonNull(memoized) ) {
+                return memoized;
+            }
+        }
+
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();
              var row = this.row.set(rs)) {
@@ -909,6 +1949,10 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(sql, params, millis);
             }
 
+            if ( nonNull(memoKey) ) {
+                this.memo.put(memoKey, optional);
+            }
+
             return optional;
         }
         catch (Throwable e) {
@@ -922,18 +1966,32 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public <T> Optional<T> doQueryAndConvertFirstRow(RowGetter<T> conversion, String sql, Object... params) {
+        return this.guarded(() -> this.doQueryAndConvertFirstRowExclusively(conversion, sql, params));
+    }
+
+    private <T> Optional<T> doQueryAndConvertFirstRowExclusively(RowGetter<T> conversion, String sql, Object... params) {
         this.mustBeValid();
+        this.flushDeferred();
+
+        QueryMemo.Key memoKey = null;
+        if ( nonNull(this.memo) ) {
+            memoKey = this.memo.keyOf(sql, params, conversion);
+            Optional<T> memoized = this.memo.get(memoKey);
+            if ( nonNull(memoized) ) {
+                return memoized;
+            }
+        }
+
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(sql);
+        try (var ps = this.prepareStatement(sql);
              var stub = this.resources.paramsSetter.setParameters(ps, params);
              var rs = ps.executeQuery();
              var row = this.row.set(rs)) {
@@ -950,6 +2008,10 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(sql, params, millis);
             }
 
+            if ( nonNull(memoKey) ) {
+                this.memo.put(memoKey, optional);
+            }
+
             return optional;
         }
         catch (Throwable e) {
@@ -963,18 +2025,23 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public int doUpdate(String updateSql) {
+        return this.guarded(() -> this.doUpdateExclusively(updateSql));
+    }
+
+    private int doUpdateExclusively(String updateSql) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.beforeWrite(updateSql);
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(updateSql);) {
+        try (var ps = this.prepareStatement(updateSql);) {
 
             int x = ps.executeUpdate();
 
@@ -996,18 +2063,23 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }  
     }
     
     @Override
     public int doUpdate(String updateSql, List params) {
+        return this.guarded(() -> this.doUpdateExclusively(updateSql, params));
+    }
+
+    private int doUpdateExclusively(String updateSql, List params) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.beforeWrite(updateSql);
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(updateSql);
+        try (var ps = this.prepareStatement(updateSql);
              var stub = this.resources.paramsSetter.setParameters(ps, params)) {
 
             int x = ps.executeUpdate();
@@ -1030,18 +2102,23 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
 
     @Override
     public <T> int doUpdate(String updateSql, ParamsApplier<T> paramsFromT, T t) {
+        return this.guarded(() -> this.doUpdateExclusively(updateSql, paramsFromT, t));
+    }
+
+    private <T> int doUpdateExclusively(String updateSql, ParamsApplier<T> paramsFromT, T t) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.beforeWrite(updateSql);
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(updateSql);
+        try (var ps = this.prepareStatement(updateSql);
              var params = this.resources.paramsPool.give()) {
 
             params.useWith(ps);
@@ -1086,18 +2163,23 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
 
     @Override
     public int doUpdate(String updateSql, Object... params) {
+        return this.guarded(() -> this.doUpdateExclusively(updateSql, params));
+    }
+
+    private int doUpdateExclusively(String updateSql, Object... params) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.beforeWrite(updateSql);
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(updateSql);
+        try (var ps = this.prepareStatement(updateSql);
              var stub = this.resources.paramsSetter.setParameters(ps, params);) {
 
             int x = ps.executeUpdate();
@@ -1120,18 +2202,23 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
 
     @Override
     public <K> List<K> doUpdateAndGetKeys(String updateSql, Class<K> keyType) {
+        return this.guarded(() -> this.doUpdateAndGetKeysExclusively(updateSql, keyType));
+    }
+
+    private <K> List<K> doUpdateAndGetKeysExclusively(String updateSql, Class<K> keyType) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.beforeWrite(updateSql);
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(updateSql, RETURN_GENERATED_KEYS)) {
+        try (var ps = this.prepareStatement(updateSql, RETURN_GENERATED_KEYS)) {
 
             ps.executeUpdate();
 
@@ -1174,18 +2261,23 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
 
     @Override
     public <K> List<K> doUpdateAndGetKeys(String updateSql, Class<K> keyType, Object... params) {
+        return this.guarded(() -> this.doUpdateAndGetKeysExclusively(updateSql, keyType, params));
+    }
+
+    private <K> List<K> doUpdateAndGetKeysExclusively(String updateSql, Class<K> keyType, Object... params) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.beforeWrite(updateSql);
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(updateSql, RETURN_GENERATED_KEYS);
+        try (var ps = this.prepareStatement(updateSql, RETURN_GENERATED_KEYS);
              var stub = this.resources.paramsSetter.setParameters(ps, params)) {
 
             ps.executeUpdate();
@@ -1217,18 +2309,23 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
 
     @Override
     public <K> List<K> doUpdateAndGetKeys(String updateSql, Class<K> keyType, List params) {
+        return this.guarded(() -> this.doUpdateAndGetKeysExclusively(updateSql, keyType, params));
+    }
+
+    private <K> List<K> doUpdateAndGetKeysExclusively(String updateSql, Class<K> keyType, List params) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.beforeWrite(updateSql);
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(updateSql, RETURN_GENERATED_KEYS);
+        try (var ps = this.prepareStatement(updateSql, RETURN_GENERATED_KEYS);
              var stub = this.resources.paramsSetter.setParameters(ps, params)) {
 
             ps.executeUpdate();
@@ -1260,15 +2357,20 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
     
     @Override
     public int[] doBatchUpdate(String updateSql, List<List> batchParams) {
+        return this.guarded(() -> this.doBatchUpdateExclusively(updateSql, batchParams));
+    }
+
+    private int[] doBatchUpdateExclusively(String updateSql, List<List> batchParams) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.beforeWrite(updateSql);
         if ( batchParams.isEmpty() ) {
             return new int[0];
         }
@@ -1276,7 +2378,7 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
 
         this.paramsMustHaveEqualQty(batchParams, updateSql);
 
-        try (var ps = this.connection.prepareStatement(updateSql)) {
+        try (var ps = this.prepareStatement(updateSql)) {
 
             for ( List params : batchParams ) {
                 this.resources.paramsSetter.setParameters(ps, params);
@@ -1306,8 +2408,7 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }  
     }
@@ -1356,13 +2457,19 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
 
     @Override
     public <T> int[] doBatchUpdate(String updateSql, ParamsApplier<T> paramsFromT, List<T> tObjects) {
+        return this.guarded(() -> this.doBatchUpdateExclusively(updateSql, paramsFromT, tObjects));
+    }
+
+    private <T> int[] doBatchUpdateExclusively(String updateSql, ParamsApplier<T> paramsFromT, List<T> tObjects) {
         this.mustBeValid();
+        this.flushDeferred();
+        this.beforeWrite(updateSql);
         if ( tObjects.isEmpty() ) {
             return new int[0];
         }
         long start = currentTimeMillis();
 
-        try (var ps = this.connection.prepareStatement(updateSql);
+        try (var ps = this.prepareStatement(updateSql);
              var params = this.resources.paramsPool.give()) {
 
             params.useWith(ps);
@@ -1399,37 +2506,84 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
                 this.sqlHistory.add(e);
             }
 
-            this.fail();
-            this.rollbackAnd(CLOSE);
+            this.failAndRollback();
             throw new JdbcException(e);
         }
     }
 
     @Override
     public void commitAndClose() {
+        boolean finished = this.guardedFinishing(() -> this.commitAndCloseExclusively());
+
+        if ( ! finished ) {
+            throw new JdbcException(format(
+                    "Transaction is used by thread %s, it is aborted and will be rolled back instead of commit!",
+                    this.usingThreadName()));
+        }
+    }
+
+    private void commitAndCloseExclusively() {
         if ( this.state.equalTo(CLOSED_COMMITTED) || this.state.equalTo(CLOSED_ROLLBACKED) ) {
             throw new JdbcException("Transaction is already closed!");
         }
 
+        if ( this.cancelled && this.state.equalTo(OPEN) ) {
+            this.recordCancellation();
+            this.fail();
+        }
+
+        if ( this.state.equalTo(OPEN) ) {
+            /*
+             * savepoints are not needed anymore, so that if flush fails, the whole
+             * transaction is rolled back and closed before exception is thrown
+             */
+            this.savepoints.clear();
+            this.flushDeferred();
+        }
+
         boolean rollbackInsteadOfCommit = false;
+        Throwable commitFailure = null;
+
+        this.recordMemoStatistics();
 
         try {
             if ( this.state.equalTo(OPEN) ) {
-                this.connection.commit();
+                if ( nonNull(this.connection) ) {
+                    if ( ! this.skipCommitWithoutWrites ) {
+                        this.connection.commit();
+                    }
+                    else if ( this.writesExecuted ) {
+                        this.connection.commit();
+                        this.recordInHistory("writes executed - finished by commit");
+                    }
+                    else {
+                        this.connection.rollback();
+                        this.recordInHistory("no writes executed - finished by rollback instead of commit");
+                    }
+                }
                 this.state = CLOSED_COMMITTED;
             }
             else if ( this.state.equalTo(FAILED) ) {
-                this.connection.rollback();
+                if ( nonNull(this.connection) ) {
+                    this.connection.rollback();
+                }
                 this.state = CLOSED_ROLLBACKED;
                 rollbackInsteadOfCommit = true;
             }
         }
         catch (Throwable commitException) {
             this.fail();
+            commitFailure = commitException;
             logger.error("Exception occurred during commiting: ");
             logger.error("", commitException);
+
+            if ( this.sqlHistoryEnabled ) {
+                this.sqlHistory.add(commitException);
+            }
+
             try {
                 this.connection.rollback();
+                this.state = CLOSED_ROLLBACKED;
                 logger.error("transaction has been rolled back.");
             }
             catch (Exception rollbackException) {
@@ -1440,6 +2594,7 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
             }
         }
         finally {
+            this.savepoints.clear();
             this.restoreAutoCommitSafely();
             this.closeConnectionAnyway();
             if ( this.sqlHistoryEnabled && this.sqlHistory.hasUnreported() ) {
@@ -1451,6 +2606,92 @@ public class JdbcTransactionReal implements JdbcTransaction, ThreadBoundJdbcTran
         if ( rollbackInsteadOfCommit ) {
             throw new JdbcException("Transaction is failed and was rolled back instead of commit!");
         }
+
+        if ( nonNull(commitFailure) ) {
+            throw new JdbcException(commitFailure);
+        }
+    }
+
+    @Override
+    public void doUpdateDeferred(String updateSql) {
+        this.doUpdateDeferred(updateSql, List.of());
+    }
+
+    @Override
+    public void doUpdateDeferred(String updateSql, Object... params) {
+        this.doUpdateDeferred(updateSql, asList(params.clone()));
+    }
+
+    @Override
+    public void doUpdateDeferred(String updateSql, List params) {
+        this.guarded(() -> this.doUpdateDeferredExclusively(updateSql, params));
+    }
+
+    private void doUpdateDeferredExclusively(String updateSql, List params) {
+        this.mustBeValid();
+        this.beforeWrite(updateSql);
+        this.deferredWrites.add(updateSql, new ArrayList<>(params));
+    }
+
+    @Override
+    public void flushDeferred() {
+        this.guarded(() -> this.flushDeferredExclusively());
+    }
+
+    private void flushDeferredExclusively() {
+        if ( this.deferredWrites.isEmpty() ) {
+            return;
+        }
+
+        this.mustBeValid();
+
+        int queued = this.deferredWrites.queued();
+        List<DeferredWrites.Group> groups = this.deferredWrites.drain();
+
+        if ( this.sqlHistoryEnabled ) {
+            this.sqlHistory.add(format("flushing %s deferred updates as %s batches", queued, groups.size()));
+        }
+
+        for ( DeferredWrites.Group group : groups ) {
+            this.doBatchUpdate(group.sql, group.batch);
+        }
+    }
+
+    private void discardDeferred() {
+        if ( this.deferredWrites.isEmpty() ) {
+            return;
+        }
+
+        if ( this.sqlHistoryEnabled ) {
+            this.sqlHistory.add(format("%s deferred updates discarded by rollback", this.deferredWrites.queued()));
+        }
+
+        this.deferredWrites.discard();
+    }
+
+    private void beforeWrite(String updateSql) {
+        this.writesExecuted = true;
+        if ( nonNull(this.memo) ) {
+            this.memo.invalidateBy(updateSql);
+        }
+    }
+
+    private void invalidateMemo() {
+        if ( nonNull(this.memo) ) {
+            this.memo.invalidateAll();
+        }
+    }
+
+    private void recordMemoStatistics() {
+        if ( nonNull(this.memo) && this.memo.hasStatistics() && this.sqlHistoryEnabled ) {
+            this.sqlHistory.add(this.memo.statistics());
+        }
+    }
+
+    public void recordInHistory(String message) {
+        if ( this.sqlHistoryEnabled ) {
+            this.sqlHistory.add(message);
+        }
     }
     
     @Override
@@ -0,0 +1,66 @@
+package diarsid.jdbc.impl.transaction;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import diarsid.jdbc.api.OpenTransactionInfo;
+
+import static java.util.Comparator.comparing;
+
+/*
+ * Transactions register themselves on creation and unregister when their
+ * connection is closed. Registration is a single ConcurrentHashMap put or
+ * remove, so transactions never wait for each other or for registry readers.
+ */
+public final class OpenTransactionsRegistry {
+
+    private final ConcurrentHashMap<UUID, JdbcTransactionReal> transactions;
+
+    public OpenTransactionsRegistry() {
+        this.transactions = new ConcurrentHashMap<>();
+    }
+
+    void register(JdbcTransactionReal transaction) {
+        this.transactions.put(transaction.uuid(), transaction);
+    }
+
+    void unregister(JdbcTransactionReal transaction) {
+        this.transactions.remove(transaction.uuid());
+    }
+
+    public boolean contains(UUID uuid) {
+        return this.transactions.containsKey(uuid);
+    }
+
+    public int size() {
+        return this.transactions.size();
+    }
+
+    /* the oldest transactions come first */
+    public List<OpenTransactionInfo> snapshot() {
+        List<OpenTransactionInfo> infos = new ArrayList<>(this.transactions.size());
+
+        for ( JdbcTransactionReal transaction : this.transactions.values() ) {
+            infos.add(transaction.info());
+        }
+
+        infos.sort(comparing(OpenTransactionInfo::elapsed).reversed());
+        return infos;
+    }
+
+    public List<JdbcTransactionReal> olderThan(Duration threshold) {
+        long thresholdNanos = threshold.toNanos();
+        List<JdbcTransactionReal> old = new ArrayList<>();
+
+        for ( JdbcTransactionReal transaction : this.transactions.values() ) {
+            if ( transaction.elapsedNanos() > thresholdNanos ) {
+                old.add(transaction);
+            }
+        }
+
+        return old;
+    }
+}
@@ -0,0 +1,208 @@
+package diarsid.jdbc.impl.transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+
+import static java.util.Objects.isNull;
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+
+/*
+ * Per-transaction memo of converted first-row query results. Entry is keyed
+ * by SQL, params and RowGetter identity. By default any update invalidates
+ * memo wholesale. Only if eviction by tables is requested explicitly, every
+ * query remembers table names it reads from, so that update of a table evicts
+ * only entries that read from it, and memo is invalidated wholesale when table
+ * names of a query or of an update cannot be recognized. Memo is not thread-safe
+ * and lives exactly as long as its transaction.
+ */
+final class QueryMemo {
+
+    private static final Pattern READ_TABLES = Pattern.compile(
+            "\\b(?:from|join)\\s+([\\w.\"`\\[\\]]+)", CASE_INSENSITIVE);
+
+    private static final Pattern WRITTEN_TABLE = Pattern.compile(
+            "^\\s*(?:insert\\s+into|update|delete\\s+from|merge\\s+into)\\s+([\\w.\"`\\[\\]]+)", CASE_INSENSITIVE);
+
+    private static final Pattern COMMA_JOIN = Pattern.compile(
+            "\\bfrom\\s+[\\w.\"`\\[\\]]+(?:\\s+(?:as\\s+)?\\w+)?\\s*,", CASE_INSENSITIVE);
+
+    static final class Key {
+
+        private final String sql;
+        private final List params;
+        private final RowGetter conversion;
+        private final int hash;
+
+        private Key(String sql, List params, RowGetter conversion) {
+            this.sql = sql;
+            this.params = params;
+            this.conversion = conversion;
+            this.hash = Objects.hash(sql, params, System.identityHashCode(conversion));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( ! (o instanceof Key) ) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.conversion == key.conversion &&
+                    this.sql.equals(key.sql) &&
+                    this.params.equals(key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Optional<?> result;
+        private final Set<String> tables;
+
+        private Entry(Optional<?> result, Set<String> tables) {
+            this.result = result;
+            this.tables = tables;
+        }
+    }
+
+    private final boolean evictionByTables;
+    private final Map<Key, Entry> entries;
+    private final Map<String, Set<String>> tablesBySql;
+    private int hits;
+    private int misses;
+    private int invalidations;
+
+    QueryMemo(boolean evictionByTables) {
+        this.evictionByTables = evictionByTables;
+        this.entries = new HashMap<>();
+        this.tablesBySql = new HashMap<>();
+        this.hits = 0;
+        this.misses = 0;
+        this.invalidations = 0;
+    }
+
+    Key keyOf(String sql, RowGetter conversion) {
+        return new Key(sql, Collections.emptyList(), conversion);
+    }
+
+    Key keyOf(String sql, Object[] params, RowGetter conversion) {
+        return new Key(sql, Arrays.asList(params.clone()), conversion);
+    }
+
+    Key keyOf(String sql, List params, RowGetter conversion) {
+        return new Key(sql, new ArrayList<>(params), conversion);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Optional<T> get(Key key) {
+        Entry entry = this.entries.get(key);
+
+        if ( isNull(entry) ) {
+            this.misses++;
+            return null;
+        }
+
+        this.hits++;
+        return (Optional<T>) entry.result;
+    }
+
+    void put(Key key, Optional<?> result) {
+        Set<String> tables;
+        if ( this.evictionByTables ) {
+            tables = this.tablesBySql.computeIfAbsent(key.sql, QueryMemo::tablesReadBy);
+        }
+        else {
+            tables = Collections.emptySet();
+        }
+        this.entries.put(key, new Entry(result, tables));
+    }
+
+    void invalidateBy(String updateSql) {
+        if ( this.entries.isEmpty() ) {
+            return;
+        }
+
+        if ( ! this.evictionByTables ) {
+            this.invalidateAll();
+            return;
+        }
+
+        Matcher matcher = WRITTEN_TABLE.matcher(updateSql);
+        if ( ! matcher.find() ) {
+            this.invalidateAll();
+            return;
+        }
+
+        String table = normalized(matcher.group(1));
+        this.invalidations++;
+
+        Iterator<Entry> iterator = this.entries.values().iterator();
+        Entry entry;
+        while ( iterator.hasNext() ) {
+            entry = iterator.next();
+            if ( entry.tables.isEmpty() || entry.tables.contains(table) ) {
+                iterator.remove();
+            }
+        }
+    }
+
+    void invalidateAll() {
+        if ( this.entries.isEmpty() ) {
+            return;
+        }
+
+        this.invalidations++;
+        this.entries.clear();
+    }
+
+    boolean hasStatistics() {
+        return this.hits > 0 || this.misses > 0;
+    }
+
+    String statistics() {
+        return String.format("query memo hits: %s, misses: %s, invalidations: %s",
+                this.hits, this.misses, this.invalidations);
+    }
+
+    /* empty set means tables are unknown and entry is evicted by any update */
+    private static Set<String> tablesReadBy(String sql) {
+        if ( COMMA_JOIN.matcher(sql).find() ) {
+            return Collections.emptySet();
+        }
+
+        Matcher matcher = READ_TABLES.matcher(sql);
+        Set<String> tables = new HashSet<>();
+        while ( matcher.find() ) {
+            tables.add(normalized(matcher.group(1)));
+        }
+        return tables;
+    }
+
+    private static String normalized(String table) {
+        String name = table.replaceAll("[\"`\\[\\]]", "").toLowerCase();
+        int dot = name.lastIndexOf('.');
+        if ( dot > -1 ) {
+            name = name.substring(dot + 1);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,144 @@
+package integrations.transactions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.AsyncJdbcOperations;
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.exceptions.JdbcException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static diarsid.jdbc.api.JdbcOption.ASYNC_QUEUE_CAPACITY;
+import static diarsid.jdbc.api.JdbcOption.ASYNC_THREADS;
+
+public class AsyncJdbcOperationsTest {
+
+    private static final String TABLE_INSERT = "INSERT INTO async_table (id) VALUES (?)";
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("async.operations.test");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE async_table (" +
+                "id     INTEGER         NOT NULL PRIMARY KEY)");
+        JDBC = newJdbc();
+    }
+
+    private static Jdbc newJdbc() {
+        return Jdbc.init(
+                new SqlConnectionsSourceTestBase(TEST_BASE),
+                Map.of(
+                        ASYNC_THREADS, 2,
+                        ASYNC_QUEUE_CAPACITY, 1));
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+        JDBC.close();
+    }
+
+    private static Integer insertInTransaction(int id) {
+        return JDBC.threadBinding().currentTransaction().doUpdate(TABLE_INSERT, id);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void operationsAreExecutedAsynchronously() throws Exception {
+        AsyncJdbcOperations async = JDBC.async();
+
+        async.doUpdate(TABLE_INSERT, 1).get(10, TimeUnit.SECONDS);
+        async.doInTransactionAsync(transaction -> insertInTransaction(2)).get(10, TimeUnit.SECONDS);
+
+        List<Integer> ids = async
+                .doQueryAndConvert(row -> row.intOf("id"), "SELECT * FROM async_table WHERE id <= ? ORDER BY id", 2)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1, 2), ids);
+        assertEquals(2, async.countQueryResults("SELECT * FROM async_table WHERE id <= 2").get(10, TimeUnit.SECONDS));
+        assertEquals(1, async.metrics().queueCapacity());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void operationsExceedingQueueAreRejected() throws Exception {
+        Jdbc jdbc = newJdbc();
+        AsyncJdbcOperations async = jdbc.async();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for ( int i = 0; i < 4; i++ ) {
+            futures.add(async.doInTransactionAsync(transaction -> {
+                await(release);
+                return 0;
+            }));
+        }
+
+        ExecutionException rejection = assertThrows(ExecutionException.class, () -> {
+            futures.get(3).get(10, TimeUnit.SECONDS);
+        });
+        assertTrue(rejection.getCause() instanceof JdbcException);
+        assertEquals(1, async.metrics().rejectedOperations());
+        assertEquals(1, async.metrics().maxQueuedOperations());
+
+        release.countDown();
+        for ( int i = 0; i < 3; i++ ) {
+            futures.get(i).get(10, TimeUnit.SECONDS);
+        }
+        jdbc.close();
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void cancellationCancelsRunningStatement() throws Exception {
+        Jdbc jdbc = newJdbc();
+        AsyncJdbcOperations async = jdbc.async();
+
+        CompletableFuture<Integer> future = async.countQueryResults(
+                "SELECT SUM(X) FROM SYSTEM_RANGE(1, 100000000000)");
+
+        long waitStart = System.currentTimeMillis();
+        while ( async.metrics().activeOperations() == 0 && System.currentTimeMillis() - waitStart < 10_000 ) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+
+        future.cancel(true);
+
+        long cancelStart = System.currentTimeMillis();
+        while ( async.metrics().activeOperations() > 0 && System.currentTimeMillis() - cancelStart < 10_000 ) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(future.isCancelled());
+        assertEquals(0, async.metrics().activeOperations());
+        jdbc.close();
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+}
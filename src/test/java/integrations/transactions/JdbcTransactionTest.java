@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
@@ -34,6 +35,7 @@ import diarsid.jdbc.api.exceptions.JdbcException;
 import diarsid.jdbc.api.exceptions.TransactionTerminationException;
 import diarsid.jdbc.api.sqltable.columns.Table;
 import diarsid.jdbc.api.sqltable.rows.Row;
+import diarsid.jdbc.api.sqltable.rows.StoppableRowOperation;
 import diarsid.jdbc.api.sqltable.rows.collectors.RowsIterationAware;
 
 import static java.lang.String.format;
@@ -44,6 +46,7 @@ import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -1000,4 +1003,279 @@ public class JdbcTransactionTest {
         }
     }
 
+    @Test
+    public void deferredUpdatesAreFlushedInOrder() {
+        JDBC.doInTransaction(transaction -> {
+            transaction.doUpdateDeferred(TABLE_1_INSERT, 4, "name_4", 40, true);
+            transaction.doUpdateDeferred(TABLE_1_INSERT, 5, "name_5", 50, true);
+            transaction.doUpdateDeferred("UPDATE table_1 SET label = ? WHERE id = ?", "name_5_updated", 5);
+            transaction.doUpdateDeferred(TABLE_1_INSERT, 6, "name_6", 60, false);
+
+            assertEquals(6, transaction.countQueryResults("SELECT * FROM table_1"));
+
+            transaction.doUpdateDeferred("DELETE FROM table_1 WHERE id = ?", 6);
+        });
+
+        assertEquals(5, TEST_BASE.countRowsInTable("table_1"));
+        assertEquals(1, JDBC.countQueryResults("SELECT * FROM table_1 WHERE label = ?", "name_5_updated"));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void failedDeferredUpdateRollsBackTransaction() {
+        JdbcTransaction transaction = JDBC.createTransaction();
+        transaction.doUpdateDeferred(TABLE_1_INSERT, 4, "name_4", 40, true);
+        transaction.doUpdateDeferred(TABLE_1_INSERT, row_1_id, "duplicate", 50, true);
+
+        try {
+            transaction.commitAndClose();
+            fail();
+        }
+        catch (JdbcException e) {
+            // expected
+        }
+
+        assertThat(transaction.state()).isEqualTo(JdbcTransaction.State.CLOSED_ROLLBACKED);
+        assertEquals(3, TEST_BASE.countRowsInTable("table_1"));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void cancelledTransactionStopsIterationAndRollsBack() {
+        AtomicInteger processed = new AtomicInteger();
+
+        try {
+            JDBC.doInTransaction(transaction -> {
+                transaction.doUpdate(TABLE_1_INSERT, 4, "name_4", 40, true);
+                transaction.doQuery(
+                        row -> {
+                            processed.incrementAndGet();
+                            transaction.cancellation().cancel();
+                        },
+                        "SELECT * FROM table_1");
+            });
+            fail();
+        }
+        catch (JdbcException e) {
+            // expected
+        }
+
+        assertEquals(1, processed.get());
+        assertEquals(3, TEST_BASE.countRowsInTable("table_1"));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void interruptedThreadStopsIteration() {
+        try {
+            Thread.currentThread().interrupt();
+            JDBC.doInTransaction(transaction -> {
+                transaction.countQueryResults("SELECT * FROM table_1");
+            });
+            fail();
+        }
+        catch (JdbcException e) {
+            // expected
+        }
+        finally {
+            assertTrue(Thread.interrupted());
+        }
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void stoppableRowOperationStopsIteration() {
+        AtomicInteger processed = new AtomicInteger();
+        StoppableRowOperation findFirstActive = row -> {
+            processed.incrementAndGet();
+            return ! row.booleanOf("active");
+        };
+
+        JDBC.doInTransaction(transaction -> {
+            transaction.doQuery(findFirstActive, "SELECT * FROM table_1 ORDER BY id");
+        });
+        assertEquals(1, processed.get());
+
+        processed.set(0);
+        JDBC.doQuery(findFirstActive, "SELECT * FROM table_1 WHERE id > ? ORDER BY id", row_1_id);
+        assertEquals(2, processed.get());
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void pipelinedQueryProcessesAllRowsInOrder() {
+        List<Integer> ids = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+
+        JDBC.doInTransaction(transaction -> {
+            transaction.doQueryPipelined(
+                    row -> {
+                        ids.add(row.intOf("id"));
+                        labels.add(row.stringOf("LABEL"));
+                    },
+                    1,
+                    "SELECT * FROM table_1 WHERE id <= ? ORDER BY id", row_3_id);
+        });
+
+        assertEquals(asList(row_1_id, row_2_id, row_3_id), ids);
+        assertEquals(asList(row_1_label, row_2_label, row_3_label), labels);
+
+        ids.clear();
+        JDBC.doQueryPipelined(row -> ids.add(row.intOf("id")), 2, "SELECT * FROM table_1 WHERE id <= 3 ORDER BY id DESC");
+        assertEquals(asList(row_3_id, row_2_id, row_1_id), ids);
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void transactionCannotBeUsedDuringPipelinedQuery() {
+        JdbcTransaction transaction = JDBC.createTransaction();
+
+        try {
+            transaction.doQueryPipelined(
+                    row -> transaction.countQueryResults("SELECT * FROM table_1"),
+                    2,
+                    "SELECT * FROM table_1");
+            fail();
+        }
+        catch (JdbcException e) {
+            assertThat(e.getCause()).isInstanceOf(ForbiddenTransactionOperation.class);
+        }
+
+        assertTrue(transaction.state().notEqualTo(OPEN));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void queryInBlocksGivesColumnarBlocks() {
+        AtomicInteger blocks = new AtomicInteger();
+        AtomicLong indexSum = new AtomicLong();
+        List<Object> labels = new ArrayList<>();
+
+        JDBC.doInTransaction(transaction -> {
+            transaction.doQueryInBlocks(
+                    block -> {
+                        blocks.incrementAndGet();
+                        long[] indexes = block.longs("index");
+                        Object[] blockLabels = block.objects("label");
+                        for ( int i = 0; i < block.size(); i++ ) {
+                            indexSum.addAndGet(indexes[i]);
+                            labels.add(blockLabels[i]);
+                        }
+                    },
+                    2,
+                    "SELECT * FROM table_1 WHERE id <= ? ORDER BY id", row_3_id);
+        });
+
+        assertEquals(2, blocks.get());
+        assertEquals(row_1_index + row_2_index + row_3_index, indexSum.get());
+        assertEquals(asList(row_1_label, row_2_label, row_3_label), labels);
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void parallelQueryProcessesAllRowsAndKeepsOrderOfConversions() {
+        List<Long> expected = new ArrayList<>();
+        for ( long i = 1; i <= 1000; i++ ) {
+            expected.add(i * 2);
+        }
+
+        JDBC.doInTransaction(transaction -> {
+            List<Long> doubled = transaction.doQueryParallelAndConvert(
+                    row -> row.longOf("X") * 2, 4, "SELECT X FROM SYSTEM_RANGE(1, ?)", 1000);
+            assertEquals(expected, doubled);
+        });
+
+        AtomicLong sum = new AtomicLong();
+        JDBC.doQueryParallel(row -> sum.addAndGet(row.longOf("X")), 4, "SELECT X FROM SYSTEM_RANGE(1, 1000)");
+        assertEquals(500500, sum.get());
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void rowSnapshotsOutliveIteration() {
+        List<Row> snapshots = new ArrayList<>();
+
+        JDBC.doInTransaction(transaction -> {
+            transaction.doQuery(
+                    row -> snapshots.add(row.snapshot()),
+                    "SELECT id, label, index, active, CAST(NULL AS INTEGER) AS nothing " +
+                    "FROM table_1 WHERE id <= ? ORDER BY id", row_3_id);
+        });
+
+        assertEquals(3, snapshots.size());
+        Row second = snapshots.get(1);
+        assertEquals(row_2_id, second.get("id"));
+        assertEquals(row_2_label, second.stringOf("label"));
+        assertEquals(row_2_index, second.intOf("INDEX"));
+        assertEquals(row_2_active, second.get("active"));
+        assertEquals(null, second.get("nothing"));
+        assertTrue(second.snapshot() == second);
+
+        Optional<Row> first = JDBC.doQueryAndConvertFirstRow(Row::snapshot, "SELECT * FROM table_1 ORDER BY id");
+        assertEquals(row_1_label, first.get().stringOf("label"));
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void rowSnapshotValuesHaveTypesOfResultSetValues() {
+        List<Object> live = new ArrayList<>();
+        List<Object> snapshot = new ArrayList<>();
+        List<String> columns = List.of("t", "s", "i", "b", "r", "d", "flag");
+
+        JDBC.doQuery(
+                row -> {
+                    Row copy = row.snapshot();
+                    for ( String column : columns ) {
+                        live.add(row.get(column));
+                        snapshot.add(copy.get(column));
+                    }
+                },
+                "SELECT CAST(1 AS TINYINT) AS t, CAST(2 AS SMALLINT) AS s, CAST(3 AS INTEGER) AS i, " +
+                "CAST(4 AS BIGINT) AS b, CAST(1.5 AS REAL) AS r, CAST(2.5 AS DOUBLE PRECISION) AS d, TRUE AS flag");
+
+        assertEquals(columns.size(), snapshot.size());
+        for ( int i = 0; i < columns.size(); i++ ) {
+            assertEquals(live.get(i), snapshot.get(i));
+            assertEquals(live.get(i).getClass(), snapshot.get(i).getClass());
+        }
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void tableRowSnapshotNeedsCurrentRow() {
+        Table table = Table.Columns.of("id").add("label");
+        JDBC.doQuery(table, "SELECT id, label FROM table_1 WHERE id <= ? ORDER BY id", row_2_id);
+
+        Table.Row row = table.row();
+        assertThrows(IllegalArgumentException.class, row::snapshot);
+
+        row.next();
+        assertEquals(row_1_label, row.snapshot().get("label"));
+
+        Row custom = new Row() {
+
+            @Override
+            public Object get(String columnLabel) {
+                return null;
+            }
+
+            @Override
+            public <T> T get(String columnLabel, Class<T> t) {
+                return null;
+            }
+
+            @Override
+            public byte[] getBytes(String columnLabel) {
+                return null;
+            }
+        };
+
+        assertThrows(JdbcException.class, custom::snapshot);
+    }
 }
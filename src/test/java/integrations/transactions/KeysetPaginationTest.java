@@ -0,0 +1,95 @@
+package integrations.transactions;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.Keyset;
+import diarsid.jdbc.api.exceptions.JdbcException;
+
+import static java.util.stream.Collectors.toList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeysetPaginationTest {
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("keyset.pagination.test");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE paged_table (" +
+                "grp    INTEGER         NOT NULL," +
+                "id     INTEGER         NOT NULL," +
+                "label  VARCHAR(100)    NOT NULL," +
+                "PRIMARY KEY (grp, id))");
+        JDBC = Jdbc.init(new SqlConnectionsSourceTestBase(TEST_BASE));
+        JDBC.doUpdate(
+                "INSERT INTO paged_table (grp, id, label) " +
+                "SELECT MOD(X, 3), X, CONCAT('label_', X) FROM SYSTEM_RANGE(1, 25)");
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+        JDBC.close();
+    }
+
+    @Test
+    public void pagesFollowCompositeKeyInBothOrders() {
+        List<List<String>> ascending = JDBC
+                .doQueryByPages(
+                        row -> row.intOf("grp") + ":" + row.intOf("id"),
+                        Keyset.ascending("grp", "id"),
+                        10,
+                        "SELECT * FROM paged_table WHERE id <= ?", 25)
+                .collect(toList());
+
+        assertEquals(3, ascending.size());
+        assertEquals(10, ascending.get(0).size());
+        assertEquals(5, ascending.get(2).size());
+        assertEquals("0:3", ascending.get(0).get(0));
+        assertEquals("0:6", ascending.get(0).get(1));
+        assertEquals("2:23", ascending.get(2).get(4));
+
+        List<String> descending = JDBC
+                .doQueryByPages(
+                        row -> row.intOf("grp") + ":" + row.intOf("id"),
+                        Keyset.descending("grp", "id"),
+                        5,
+                        "SELECT grp, id FROM paged_table")
+                .flatMap(List::stream)
+                .collect(toList());
+
+        assertEquals(25, descending.size());
+        assertEquals("2:23", descending.get(0));
+        assertEquals("0:3", descending.get(24));
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void nullKeyOfLastRowOfPageIsRejected() {
+        Iterator<List<Object>> pages = JDBC
+                .doQueryByPages(
+                        row -> row.get("k"),
+                        Keyset.ascending("k"),
+                        5,
+                        "SELECT CASE WHEN id > 20 THEN NULL ELSE id END AS k FROM paged_table")
+                .iterator();
+
+        assertEquals(5, pages.next().size());
+        assertThrows(JdbcException.class, pages::hasNext);
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+}
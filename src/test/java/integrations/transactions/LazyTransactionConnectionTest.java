@@ -0,0 +1,90 @@
+package integrations.transactions;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static diarsid.jdbc.api.Jdbc.WhenNoTransactionThen.IF_NO_TRANSACTION_OPEN_NEW;
+
+public class LazyTransactionConnectionTest {
+
+    public interface Lookup {
+
+        String cached();
+
+        int counted();
+    }
+
+    private static class CountingConnectionsSource extends SqlConnectionsSourceTestBase {
+
+        private final AtomicInteger checkouts;
+
+        CountingConnectionsSource(TestDataBase testDataBase) {
+            super(testDataBase);
+            this.checkouts = new AtomicInteger();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            this.checkouts.incrementAndGet();
+            return super.getConnection();
+        }
+    }
+
+    private static TestDataBase TEST_BASE;
+    private static CountingConnectionsSource SOURCE;
+    private static Jdbc JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("lazy.transactions.test");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE lazy_table (" +
+                "id     INTEGER         NOT NULL PRIMARY KEY)");
+        SOURCE = new CountingConnectionsSource(TEST_BASE);
+        JDBC = Jdbc.init(SOURCE);
+    }
+
+    @Test
+    public void transactionWithoutOperationsDoesNotAcquireConnection() {
+        Lookup lookup = JDBC.createTransactionalProxyFor(
+                Lookup.class,
+                new Lookup() {
+                    @Override
+                    public String cached() {
+                        return "from cache";
+                    }
+
+                    @Override
+                    public int counted() {
+                        return JDBC.threadBinding().currentTransaction().countQueryResults("SELECT * FROM lazy_table");
+                    }
+                },
+                IF_NO_TRANSACTION_OPEN_NEW);
+
+        int checkoutsBefore = SOURCE.checkouts.get();
+
+        assertEquals("from cache", lookup.cached());
+        JDBC.doInTransaction(transaction -> {
+            assertTrue(transaction.state().isOpen());
+        });
+        assertEquals(checkoutsBefore, SOURCE.checkouts.get());
+
+        assertEquals(0, lookup.counted());
+        assertEquals(checkoutsBefore + 1, SOURCE.checkouts.get());
+
+        assertFalse(JDBC.threadBinding().isBound());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+}
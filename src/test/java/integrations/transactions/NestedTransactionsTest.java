@@ -0,0 +1,162 @@
+package integrations.transactions;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.JdbcTransaction;
+import diarsid.jdbc.api.exceptions.ForbiddenTransactionOperation;
+import diarsid.jdbc.api.exceptions.JdbcException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static diarsid.jdbc.api.JdbcOption.NESTED_TRANSACTIONS_AS_SAVEPOINTS;
+import static diarsid.jdbc.api.JdbcTransaction.State.CLOSED_ROLLBACKED;
+import static diarsid.jdbc.api.JdbcTransaction.State.OPEN;
+
+public class NestedTransactionsTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(NestedTransactionsTest.class);
+
+    private static final String TABLE_CREATE =
+            "CREATE TABLE nested_table (" +
+            "id     INTEGER         NOT NULL PRIMARY KEY," +
+            "label  VARCHAR(100)    NOT NULL)";
+    private static final String TABLE_INSERT =
+            "INSERT INTO nested_table (id, label) " +
+            "VALUES (?, ?)";
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("nested.transactions.test");
+        TEST_BASE.setupRequiredTable(TABLE_CREATE);
+        JDBC = Jdbc.init(
+                new SqlConnectionsSourceTestBase(TEST_BASE),
+                Map.of(NESTED_TRANSACTIONS_AS_SAVEPOINTS, true));
+    }
+
+    @AfterEach
+    public void clearCase() {
+        try (Connection connection = TEST_BASE.getConnection();
+             Statement st = connection.createStatement();) {
+            st.executeUpdate("DELETE FROM nested_table");
+        } catch (SQLException e) {
+            logger.error("test base data cleaning: ", e);
+        }
+    }
+
+    private static void failInnerStep() {
+        throw new IllegalStateException();
+    }
+
+    @Test
+    public void failedNestedTransactionRollsBackOnlyToSavepoint() {
+        JDBC.doInTransaction(outer -> {
+            outer.doUpdate(TABLE_INSERT, 1, "outer_1");
+
+            assertThrows(IllegalStateException.class, () -> {
+                JDBC.doInTransaction(inner -> {
+                    inner.doUpdate(TABLE_INSERT, 2, "inner_2");
+                    failInnerStep();
+                });
+            });
+
+            JDBC.doInTransaction(inner -> {
+                inner.doUpdate(TABLE_INSERT, 3, "inner_3");
+            });
+
+            assertEquals(OPEN, outer.state());
+            outer.doUpdate(TABLE_INSERT, 4, "outer_4");
+        });
+
+        assertEquals(3, TEST_BASE.countRowsInTable("nested_table"));
+        assertFalse(JDBC.threadBinding().isBound());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void failedSqlInNestedTransactionLeavesOuterOpen() {
+        JDBC.doInTransaction(outer -> {
+            outer.doUpdate(TABLE_INSERT, 1, "outer_1");
+
+            assertThrows(JdbcException.class, () -> {
+                JDBC.doInTransaction(inner -> {
+                    inner.doUpdate(TABLE_INSERT, 2, "inner_2");
+                    inner.doUpdate(TABLE_INSERT, 1, "duplicate_1");
+                });
+            });
+
+            assertEquals(OPEN, outer.state());
+        });
+
+        assertEquals(1, TEST_BASE.countRowsInTable("nested_table"));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void failedDeferredUpdateInNestedTransactionRollsBackOnlyToSavepoint() {
+        JDBC.doInTransaction(outer -> {
+            outer.doUpdate(TABLE_INSERT, 1, "outer_1");
+
+            assertThrows(JdbcException.class, () -> {
+                JDBC.doInTransaction(inner -> {
+                    inner.doUpdateDeferred(TABLE_INSERT, 2, "inner_2");
+                    inner.doUpdateDeferred(TABLE_INSERT, 1, "duplicate_1");
+                });
+            });
+
+            assertEquals(OPEN, outer.state());
+            outer.doUpdate(TABLE_INSERT, 3, "outer_3");
+        });
+
+        assertEquals(2, TEST_BASE.countRowsInTable("nested_table"));
+
+        JdbcTransaction outer = JDBC.createTransaction();
+        outer.doUpdate(TABLE_INSERT, 4, "outer_4");
+        JDBC.doInTransaction(inner -> {
+            inner.doUpdateDeferred(TABLE_INSERT, 4, "duplicate_4");
+            assertThrows(JdbcException.class, outer::commitAndClose);
+        });
+
+        assertEquals(CLOSED_ROLLBACKED, outer.state());
+
+        assertEquals(2, TEST_BASE.countRowsInTable("nested_table"));
+        assertFalse(JDBC.threadBinding().isBound());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void nestingIsForbiddenWhenDisabled() {
+        JDBC.change(NESTED_TRANSACTIONS_AS_SAVEPOINTS, false);
+        try {
+            JDBC.doInTransaction(outer -> {
+                assertThrows(ForbiddenTransactionOperation.class, () -> {
+                    JDBC.doInTransaction(inner -> {
+                        inner.countQueryResults("SELECT * FROM nested_table");
+                    });
+                });
+            });
+        }
+        finally {
+            JDBC.change(NESTED_TRANSACTIONS_AS_SAVEPOINTS, true);
+        }
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+}
@@ -0,0 +1,81 @@
+package integrations.transactions;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.JdbcTransaction;
+import diarsid.jdbc.api.OpenTransactionInfo;
+import diarsid.jdbc.api.exceptions.JdbcException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static diarsid.jdbc.api.JdbcOption.TRANSACTION_WATCHDOG_ABORTS;
+import static diarsid.jdbc.api.JdbcOption.TRANSACTION_WATCHDOG_THRESHOLD;
+import static diarsid.jdbc.api.JdbcTransaction.State.CLOSED_ROLLBACKED;
+
+public class OpenTransactionsTest {
+
+    private static final String SELECT = "SELECT * FROM watched_table";
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("open.transactions.test");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE watched_table (" +
+                "id     INTEGER         NOT NULL PRIMARY KEY)");
+        JDBC = Jdbc.init(
+                new SqlConnectionsSourceTestBase(TEST_BASE),
+                Map.of(
+                        TRANSACTION_WATCHDOG_THRESHOLD, Duration.ofMillis(300),
+                        TRANSACTION_WATCHDOG_ABORTS, true));
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+        JDBC.close();
+    }
+
+    private static void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void openTransactionsAreListedAndStuckOnesAreAborted() {
+        JdbcTransaction transaction = JDBC.createTransaction();
+        transaction.countQueryResults(SELECT);
+
+        List<OpenTransactionInfo> open = JDBC.openTransactions();
+        assertEquals(1, open.size());
+        assertEquals(transaction.uuid(), open.get(0).uuid());
+        assertEquals(SELECT, open.get(0).currentSql().get());
+        assertEquals(Thread.currentThread().getName(), open.get(0).ownerThread());
+
+        sleepMillis(1000);
+
+        assertThrows(JdbcException.class, () -> {
+            transaction.countQueryResults(SELECT);
+        });
+
+        assertEquals(CLOSED_ROLLBACKED, transaction.state());
+        assertTrue(JDBC.openTransactions().isEmpty());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+}
@@ -0,0 +1,90 @@
+package integrations.transactions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.sqltable.rows.collectors.RowsCollectorOneToManyOrdered;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderedOneToManyCollectorTest {
+
+    private static final String SELECT_JOINED =
+            "SELECT o.id AS one_id, o.name AS one_name, m.id AS many_id, m.name AS many_name " +
+            "FROM ones o " +
+            "    LEFT JOIN ones_to_manies otm ON otm.one_id = o.id " +
+            "    LEFT JOIN manies m ON m.id = otm.many_id " +
+            "ORDER BY o.id, m.id";
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("ordered.one.to.many.test");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE ones (" +
+                "id     INTEGER         NOT NULL PRIMARY KEY," +
+                "name   VARCHAR(100)    NOT NULL)");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE manies (" +
+                "id     INTEGER         NOT NULL PRIMARY KEY," +
+                "name   VARCHAR(100)    NOT NULL)");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE ones_to_manies (" +
+                "one_id     INTEGER     NOT NULL," +
+                "many_id    INTEGER     NOT NULL," +
+                "PRIMARY KEY (one_id, many_id))");
+        JDBC = Jdbc.init(new SqlConnectionsSourceTestBase(TEST_BASE));
+        JDBC.doUpdate("INSERT INTO ones (id, name) VALUES (1, 'one_1'), (2, 'one_2'), (3, 'one_3')");
+        JDBC.doUpdate("INSERT INTO manies (id, name) VALUES (1, 'many_1'), (2, 'many_2'), (3, 'many_3')");
+        JDBC.doUpdate("INSERT INTO ones_to_manies (one_id, many_id) VALUES (1, 1), (1, 2), (3, 2), (3, 3)");
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+        JDBC.close();
+    }
+
+    @Test
+    public void onesArePassedWithManiesInOrder() {
+        List<String> ones = new ArrayList<>();
+        List<List<String>> manies = new ArrayList<>();
+
+        RowsCollectorOneToManyOrdered<String, Integer, String, Integer> collector = new RowsCollectorOneToManyOrdered<>(
+                row -> row.intOf("one_id"),
+                row -> (Integer) row.get("many_id"),
+                row -> row.stringOf("one_name"),
+                row -> row.stringOf("many_name"),
+                (one, manyList) -> {
+                    ones.add(one);
+                    manies.add(manyList);
+                });
+
+        JDBC.doQuery(collector, SELECT_JOINED);
+
+        assertEquals(List.of("one_1", "one_2", "one_3"), ones);
+        assertEquals(List.of("many_1", "many_2"), manies.get(0));
+        assertTrue(manies.get(1).isEmpty());
+        assertEquals(List.of("many_2", "many_3"), manies.get(2));
+        assertSame(manies.get(0).get(1), manies.get(2).get(0));
+        assertEquals(3, collector.passedOnesCount());
+        assertEquals(5, collector.iteratedRowsCount());
+
+        collector.clear();
+        ones.clear();
+        JDBC.doQuery(collector, SELECT_JOINED);
+
+        assertEquals(3, ones.size());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+}
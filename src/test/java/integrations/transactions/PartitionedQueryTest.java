@@ -0,0 +1,90 @@
+package integrations.transactions;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.sqltable.rows.StoppableRowOperation;
+
+import static java.util.stream.Collectors.toList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartitionedQueryTest {
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("partitioned.query.test");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE partitioned_table (" +
+                "id     INTEGER         NOT NULL PRIMARY KEY," +
+                "amount INTEGER         NOT NULL)");
+        JDBC = Jdbc.init(new SqlConnectionsSourceTestBase(TEST_BASE));
+        JDBC.doUpdate("INSERT INTO partitioned_table (id, amount) SELECT X, X * 10 FROM SYSTEM_RANGE(1, 1000)");
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+        JDBC.close();
+    }
+
+    @Test
+    public void allRowsAreReadByRanges() {
+        AtomicLong sum = new AtomicLong();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        JDBC.doQueryPartitioned(
+                row -> {
+                    sum.addAndGet(row.intOf("amount"));
+                    threads.add(Thread.currentThread().getName());
+                },
+                "partitioned_table", "id", 4);
+
+        assertEquals(5005000, sum.get());
+        assertTrue(threads.size() > 1);
+
+        try (Stream<Integer> ids = JDBC.doQueryPartitionedAndStream(row -> row.intOf("id"), "partitioned_table", "id", 3)) {
+            List<Integer> sorted = ids.sorted().collect(toList());
+            assertEquals(1000, sorted.size());
+            assertEquals(1, sorted.get(0));
+            assertEquals(1000, sorted.get(999));
+        }
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void stopInOneRangeStopsAllRanges() {
+        AtomicLong processed = new AtomicLong();
+
+        JDBC.doQueryPartitioned(
+                (StoppableRowOperation) row -> processed.incrementAndGet() != 10,
+                "partitioned_table", "id", 4);
+
+        assertTrue(processed.get() >= 10);
+        assertTrue(processed.get() < 100);
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void invalidNamesAreRejected() {
+        assertThrows(JdbcException.class, () -> {
+            JDBC.doQueryPartitioned(row -> { }, "partitioned_table; DROP TABLE partitioned_table", "id", 2);
+        });
+    }
+}
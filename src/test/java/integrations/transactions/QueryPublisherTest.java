@@ -0,0 +1,132 @@
+package integrations.transactions;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryPublisherTest {
+
+    private static final String SELECT_RANGE = "SELECT X FROM SYSTEM_RANGE(1, ?)";
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+
+    private static class TakingSubscriber implements Flow.Subscriber<Long> {
+
+        private final int take;
+        private final List<Long> received;
+        private final CountDownLatch finished;
+        private volatile boolean completed;
+        private Flow.Subscription subscription;
+
+        private TakingSubscriber(int take) {
+            this.take = take;
+            this.received = new CopyOnWriteArrayList<>();
+            this.finished = new CountDownLatch(1);
+            this.completed = false;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Long item) {
+            this.received.add(item);
+            if ( this.received.size() == this.take ) {
+                this.subscription.cancel();
+                this.finished.countDown();
+            }
+            else {
+                this.subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+            this.finished.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            assertTrue(this.finished.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("query.publisher.test");
+        JDBC = Jdbc.init(new SqlConnectionsSourceTestBase(TEST_BASE));
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+        JDBC.close();
+    }
+
+    private static void awaitConnectionsReleased() throws InterruptedException {
+        for ( int i = 0; i < 100 && ! TEST_BASE.ifAllConnectionsReleased(); i++ ) {
+            Thread.sleep(50);
+        }
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void allRequestedRowsArePublished() throws Exception {
+        TakingSubscriber subscriber = new TakingSubscriber(Integer.MAX_VALUE);
+        JDBC.doQueryAndPublish(row -> row.longOf("X"), SELECT_RANGE, 100).subscribe(subscriber);
+
+        subscriber.await();
+
+        assertTrue(subscriber.completed);
+        assertEquals(100, subscriber.received.size());
+        assertEquals(100L, subscriber.received.get(99));
+        awaitConnectionsReleased();
+    }
+
+    @Test
+    public void cancellationClosesConnection() throws Exception {
+        TakingSubscriber subscriber = new TakingSubscriber(10);
+        JDBC.doQueryAndPublish(row -> row.longOf("X"), SELECT_RANGE, 1000).subscribe(subscriber);
+
+        subscriber.await();
+
+        assertEquals(10, subscriber.received.size());
+        awaitConnectionsReleased();
+        assertTrue( ! subscriber.completed);
+    }
+
+    @Test
+    public void cancellationStopsExecutingQuery() throws Exception {
+        TakingSubscriber subscriber = new TakingSubscriber(Integer.MAX_VALUE);
+        JDBC.doQueryAndPublish(row -> row.longOf("X"), "SELECT SUM(X) AS X FROM SYSTEM_RANGE(1, 100000000000)")
+                .subscribe(subscriber);
+
+        Thread.sleep(300);
+        subscriber.subscription.cancel();
+
+        awaitConnectionsReleased();
+        assertTrue(subscriber.received.isEmpty());
+        assertTrue( ! subscriber.completed);
+    }
+}
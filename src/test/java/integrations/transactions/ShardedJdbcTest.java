@@ -0,0 +1,164 @@
+package integrations.transactions;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.ShardedJdbc;
+import diarsid.jdbc.api.exceptions.JdbcException;
+
+import static java.util.Comparator.comparingInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardedJdbcTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedJdbcTest.class);
+
+    private static final String TABLE_CREATE =
+            "CREATE TABLE tenants (" +
+            "id     INTEGER         NOT NULL PRIMARY KEY," +
+            "label  VARCHAR(100)    NOT NULL)";
+    private static final String TABLE_INSERT =
+            "INSERT INTO tenants (id, label) " +
+            "VALUES (?, ?)";
+
+    private static TestDataBase SHARD_0;
+    private static TestDataBase SHARD_1;
+    private static ShardedJdbc<Integer> JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        SHARD_0 = new H2TestDataBase("sharded.test.0");
+        SHARD_1 = new H2TestDataBase("sharded.test.1");
+        SHARD_0.setupRequiredTable(TABLE_CREATE);
+        SHARD_1.setupRequiredTable(TABLE_CREATE);
+
+        JDBC = ShardedJdbc.init(
+                List.of(new SqlConnectionsSourceTestBase(SHARD_0), new SqlConnectionsSourceTestBase(SHARD_1)),
+                (tenantId, shardsQty) -> tenantId % shardsQty);
+    }
+
+    @AfterEach
+    public void clearCase() {
+        clearData(SHARD_0);
+        clearData(SHARD_1);
+    }
+
+    private static void clearData(TestDataBase base) {
+        try (Connection connection = base.getConnection();
+             Statement st = connection.createStatement();) {
+            st.executeUpdate("DELETE FROM tenants");
+        } catch (SQLException e) {
+            logger.error("test base data cleaning: ", e);
+        }
+    }
+
+    @Test
+    public void operationsAreRoutedByKey() {
+        for ( int tenantId = 0; tenantId < 5; tenantId++ ) {
+            JDBC.operationsFor(tenantId).doUpdate(TABLE_INSERT, tenantId, "tenant_" + tenantId);
+        }
+
+        assertEquals(3, SHARD_0.countRowsInTable("tenants"));
+        assertEquals(2, SHARD_1.countRowsInTable("tenants"));
+        assertTrue(SHARD_0.ifAllConnectionsReleased());
+        assertTrue(SHARD_1.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void transactionsAreRoutedByKey() {
+        JDBC.doInTransaction(3, transaction -> {
+            transaction.doUpdate(TABLE_INSERT, 3, "tenant_3");
+            transaction.doUpdate(TABLE_INSERT, 5, "tenant_5");
+        });
+
+        assertEquals(0, SHARD_0.countRowsInTable("tenants"));
+        assertEquals(2, SHARD_1.countRowsInTable("tenants"));
+        assertTrue(SHARD_1.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void threadBindingIsPerShard() {
+        JDBC.doInTransaction(0, transaction0 -> {
+            assertTrue(JDBC.shard(0).threadBinding().isBound());
+            assertFalse(JDBC.shard(1).threadBinding().isBound());
+
+            JDBC.doInTransaction(1, transaction1 -> {
+                assertNotSame(transaction0, transaction1);
+                transaction1.doUpdate(TABLE_INSERT, 1, "tenant_1");
+            });
+
+            transaction0.doUpdate(TABLE_INSERT, 2, "tenant_2");
+        });
+
+        assertEquals(1, SHARD_0.countRowsInTable("tenants"));
+        assertEquals(1, SHARD_1.countRowsInTable("tenants"));
+        assertTrue(SHARD_0.ifAllConnectionsReleased());
+        assertTrue(SHARD_1.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void queryOnAllShardsIsGathered() {
+        for ( int tenantId = 0; tenantId < 10; tenantId++ ) {
+            JDBC.operationsFor(tenantId).doUpdate(TABLE_INSERT, tenantId, "tenant_" + tenantId);
+        }
+
+        List<Integer> ids;
+        try (Stream<Integer> stream = JDBC.doQueryOnAllShardsAndStream(
+                row -> row.intOf("id"),
+                "SELECT id FROM tenants")) {
+            ids = stream.sorted().collect(Collectors.toList());
+        }
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), ids);
+        assertTrue(SHARD_0.ifAllConnectionsReleased());
+        assertTrue(SHARD_1.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void queryOnAllShardsIsMergedInOrderWithLimit() {
+        for ( int tenantId = 0; tenantId < 10; tenantId++ ) {
+            JDBC.operationsFor(tenantId).doUpdate(TABLE_INSERT, tenantId, "tenant_" + tenantId);
+        }
+
+        List<Integer> ids;
+        try (Stream<Integer> stream = JDBC.doQueryOnAllShardsAndStreamMerged(
+                row -> row.intOf("id"),
+                comparingInt(id -> -id),
+                4,
+                "SELECT id FROM tenants ORDER BY id DESC")) {
+            ids = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(List.of(9, 8, 7, 6), ids);
+    }
+
+    @Test
+    public void nullConversionOnAnyShardFailsGathering() {
+        for ( int tenantId = 0; tenantId < 4; tenantId++ ) {
+            JDBC.operationsFor(tenantId).doUpdate(TABLE_INSERT, tenantId, "tenant_" + tenantId);
+        }
+
+        try (Stream<Integer> stream = JDBC.doQueryOnAllShardsAndStream(
+                row -> row.intOf("id") == 3 ? null : row.intOf("id"),
+                "SELECT id FROM tenants")) {
+            assertThrows(JdbcException.class, () -> stream.collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package integrations.transactions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.TransactionContext;
+import diarsid.jdbc.api.exceptions.ForbiddenTransactionOperation;
+
+import static java.util.Collections.synchronizedList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransactionContextTest {
+
+    private static final String TABLE_INSERT = "INSERT INTO context_table (id) VALUES (?)";
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+    private static ExecutorService EXECUTOR;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("transaction.context.test");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE context_table (" +
+                "id     INTEGER         NOT NULL PRIMARY KEY)");
+        JDBC = Jdbc.init(new SqlConnectionsSourceTestBase(TEST_BASE));
+        EXECUTOR = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+        EXECUTOR.shutdownNow();
+    }
+
+    @Test
+    public void capturedTransactionIsUsedByOtherThreads() {
+        JDBC.doInTransaction(transaction -> {
+            TransactionContext context = JDBC.threadBinding().captureCurrent();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int i = 1; i <= 8; i++ ) {
+                int id = i;
+                futures.add(EXECUTOR.submit(context.wrap(() -> {
+                    JDBC.threadBinding().currentTransaction().doUpdate(TABLE_INSERT, id);
+                })));
+            }
+
+            for ( Future<?> future : futures ) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            assertEquals(8, transaction.countQueryResults("SELECT * FROM context_table WHERE id <= 8"));
+        });
+
+        assertEquals(8, JDBC.countQueryResults("SELECT * FROM context_table WHERE id <= 8"));
+        assertFalse(JDBC.threadBinding().isBound());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void owningThreadCannotUseTransactionWhileItIsBorrowed() throws Exception {
+        CountDownLatch borrowed = new CountDownLatch(1);
+        CountDownLatch checked = new CountDownLatch(1);
+
+        JDBC.doInTransaction(transaction -> {
+            TransactionContext context = JDBC.threadBinding().captureCurrent();
+
+            Future<?> future = EXECUTOR.submit(context.wrap(() -> {
+                borrowed.countDown();
+                await(checked);
+                JDBC.threadBinding().currentTransaction().doUpdate(TABLE_INSERT, 100);
+            }));
+
+            await(borrowed);
+            assertThrows(ForbiddenTransactionOperation.class, () -> {
+                transaction.countQueryResults("SELECT * FROM context_table");
+            });
+            checked.countDown();
+
+            try {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(1, JDBC.countQueryResults("SELECT * FROM context_table WHERE id = ?", 100));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void borrowingThreadWaitsForOperationOfOwningThread() {
+        List<String> events = synchronizedList(new ArrayList<>());
+        CountDownLatch borrowing = new CountDownLatch(1);
+
+        JDBC.doInTransaction(transaction -> {
+            TransactionContext context = JDBC.threadBinding().captureCurrent();
+            Callable<Object> borrowed = context.wrap(() -> {
+                events.add("borrower");
+                JDBC.threadBinding().currentTransaction().doUpdate(TABLE_INSERT, 200);
+                return null;
+            });
+
+            List<Future<?>> futures = new ArrayList<>();
+
+            transaction.doQuery(
+                    row -> {
+                        long x = row.longOf("X");
+                        if ( x == 1 ) {
+                            futures.add(EXECUTOR.submit(() -> {
+                                borrowing.countDown();
+                                return borrowed.call();
+                            }));
+                            await(borrowing);
+                        }
+                        sleep(50);
+                        events.add("owner " + x);
+                    },
+                    "SELECT X FROM SYSTEM_RANGE(1, 5)");
+
+            try {
+                futures.get(0).get(10, TimeUnit.SECONDS);
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(List.of("owner 1", "owner 2", "owner 3", "owner 4", "owner 5", "borrower"), events);
+        assertEquals(1, JDBC.countQueryResults("SELECT * FROM context_table WHERE id = ?", 200));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void commitWaitsForBorrowingThread() throws Exception {
+        CountDownLatch borrowed = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        JDBC.doInTransaction(transaction -> {
+            TransactionContext context = JDBC.threadBinding().captureCurrent();
+
+            futures.add(EXECUTOR.submit(context.wrap(() -> {
+                borrowed.countDown();
+                sleep(300);
+                JDBC.threadBinding().currentTransaction().doUpdate(TABLE_INSERT, 300);
+            })));
+
+            await(borrowed);
+        });
+
+        futures.get(0).get(10, TimeUnit.SECONDS);
+        assertEquals(1, JDBC.countQueryResults("SELECT * FROM context_table WHERE id = ?", 300));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
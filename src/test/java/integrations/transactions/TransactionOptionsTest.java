@@ -0,0 +1,279 @@
+package integrations.transactions;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.JdbcTransaction;
+import diarsid.jdbc.api.RetryPolicy;
+import diarsid.jdbc.api.TransactionOptions;
+import diarsid.jdbc.api.exceptions.JdbcException;
+import diarsid.jdbc.api.exceptions.TransactionDeadlineExceededException;
+import diarsid.jdbc.api.sqltable.rows.RowGetter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static diarsid.jdbc.api.JdbcOption.SKIP_COMMIT_WITHOUT_WRITES;
+import static diarsid.jdbc.api.JdbcTransaction.State.CLOSED_COMMITTED;
+import static diarsid.jdbc.api.JdbcTransaction.State.CLOSED_ROLLBACKED;
+import static diarsid.jdbc.api.TransactionOptions.Isolation.SERIALIZABLE;
+
+public class TransactionOptionsTest {
+
+    private static final String TABLE_CREATE =
+            "CREATE TABLE options_table (" +
+            "id     INTEGER         NOT NULL PRIMARY KEY," +
+            "label  VARCHAR(100)    NOT NULL)";
+    private static final String TABLE_INSERT =
+            "INSERT INTO options_table (id, label) " +
+            "VALUES (?, ?)";
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("transaction.options.test");
+        TEST_BASE.setupRequiredTable(TABLE_CREATE);
+        TEST_BASE.setupRequiredTable("CREATE VIEW options_view AS SELECT id, label FROM options_table");
+        JDBC = Jdbc.init(new SqlConnectionsSourceTestBase(TEST_BASE));
+    }
+
+    @Test
+    public void optionsAreAppliedAndRestored() {
+        AtomicBoolean readOnlyDefault = new AtomicBoolean();
+        AtomicInteger isolationDefault = new AtomicInteger();
+
+        JDBC.doInTransaction(transaction -> {
+            transaction.useJdbcDirectly(connection -> {
+                readOnlyDefault.set(connection.isReadOnly());
+                isolationDefault.set(connection.getTransactionIsolation());
+            });
+        });
+
+        TransactionOptions options = TransactionOptions.DEFAULT
+                .readOnly()
+                .withIsolation(SERIALIZABLE)
+                .withTimeout(Duration.ofSeconds(5));
+
+        int count = JDBC.doInTransaction(options, transaction -> {
+            transaction.useJdbcDirectly(connection -> {
+                assertEquals(Connection.TRANSACTION_SERIALIZABLE, connection.getTransactionIsolation());
+            });
+            return transaction.countQueryResults("SELECT * FROM options_table");
+        });
+
+        assertEquals(0, count);
+
+        try (JdbcTransaction transaction = JDBC.createTransaction()) {
+            transaction.useJdbcDirectly(connection -> {
+                assertEquals(readOnlyDefault.get(), connection.isReadOnly());
+                assertEquals(isolationDefault.get(), connection.getTransactionIsolation());
+            });
+        }
+
+        assertFalse(JDBC.threadBinding().isBound());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    private static void failWithSqlState(String sqlState) {
+        throw new JdbcException(new SQLException("failure imitation", sqlState));
+    }
+
+    @Test
+    public void transactionIsRetriedOnSerializationFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+        TransactionOptions options = TransactionOptions.DEFAULT
+                .withRetry(RetryPolicy.onDeadlockOrSerializationFailure(3));
+
+        JDBC.doInTransaction(options, transaction -> {
+            transaction.doUpdate(TABLE_INSERT, 100, "retried");
+            if ( attempts.incrementAndGet() < 3 ) {
+                failWithSqlState("40001");
+            }
+        });
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, JDBC.countQueryResults("SELECT * FROM options_table WHERE id = ?", 100));
+
+        attempts.set(0);
+        assertThrows(JdbcException.class, () -> {
+            JDBC.doInTransaction(options, transaction -> {
+                attempts.incrementAndGet();
+                failWithSqlState("23505");
+            });
+        });
+
+        assertEquals(1, attempts.get());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void queryResultsAreMemoizedUntilUpdate() {
+        AtomicInteger conversions = new AtomicInteger();
+        RowGetter<String> label = row -> {
+            conversions.incrementAndGet();
+            return row.stringOf("label");
+        };
+        String select = "SELECT label FROM options_table WHERE id = ?";
+
+        JDBC.doInTransaction(TransactionOptions.DEFAULT.withQueryMemo(), transaction -> {
+            transaction.doUpdate(TABLE_INSERT, 200, "memo_1");
+
+            assertEquals("memo_1", transaction.doQueryAndConvertFirstRow(label, select, 200).get());
+            assertEquals("memo_1", transaction.doQueryAndConvertFirstRow(label, select, 200).get());
+            assertEquals(1, conversions.get());
+
+            transaction.doUpdate("UPDATE options_table SET label = ? WHERE id = ?", "memo_2", 200);
+
+            assertEquals("memo_2", transaction.doQueryAndConvertFirstRow(label, select, 200).get());
+            assertEquals(2, conversions.get());
+        });
+
+        JDBC.doInTransaction(transaction -> {
+            transaction.doQueryAndConvertFirstRow(label, select, 200);
+            transaction.doQueryAndConvertFirstRow(label, select, 200);
+            transaction.doUpdate("DELETE FROM options_table WHERE id = ?", 200);
+        });
+
+        assertEquals(4, conversions.get());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void anyUpdateEvictsMemoizedResultsByDefault() {
+        RowGetter<String> label = row -> row.stringOf("label");
+        String selectFromView = "SELECT label FROM options_view WHERE id = ?";
+
+        JDBC.doInTransaction(TransactionOptions.DEFAULT.withQueryMemo(), transaction -> {
+            transaction.doUpdate(TABLE_INSERT, 210, "view_1");
+            assertEquals("view_1", transaction.doQueryAndConvertFirstRow(label, selectFromView, 210).get());
+
+            transaction.doUpdate("UPDATE options_table SET label = ? WHERE id = ?", "view_2", 210);
+            assertEquals("view_2", transaction.doQueryAndConvertFirstRow(label, selectFromView, 210).get());
+
+            transaction.doUpdate("DELETE FROM options_table WHERE id = ?", 210);
+        });
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void transactionWithoutWritesIsFinishedWithoutCommit() {
+        JDBC.change(SKIP_COMMIT_WITHOUT_WRITES, true);
+        try {
+            JdbcTransaction reading = JDBC.createTransaction();
+            reading.countQueryResults("SELECT * FROM options_table");
+            reading.commitAndClose();
+            assertEquals(CLOSED_COMMITTED, reading.state());
+
+            JDBC.doInTransaction(transaction -> {
+                transaction.countQueryResults("SELECT * FROM options_table");
+                transaction.doUpdate(TABLE_INSERT, 300, "written");
+            });
+        }
+        finally {
+            JDBC.change(SKIP_COMMIT_WITHOUT_WRITES, false);
+        }
+
+        assertEquals(1, JDBC.countQueryResults("SELECT * FROM options_table WHERE id = ?", 300));
+        JDBC.doInTransaction(transaction -> {
+            transaction.doUpdate("DELETE FROM options_table WHERE id = ?", 300);
+        });
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    private static boolean finishedWithoutCommit(JdbcTransaction transaction) {
+        List<String> comments = new ArrayList<>();
+        transaction.sqlHistory().forEach(record -> comments.add(record.string()));
+        return comments.stream().anyMatch(comment -> comment.contains("finished by rollback instead of commit"));
+    }
+
+    @Test
+    public void readOnlyTransactionIsCommittedUnlessSkippingIsEnabled() {
+        JdbcTransaction committed = JDBC.createTransaction(TransactionOptions.DEFAULT.readOnly());
+        committed.countQueryResults("SELECT * FROM options_table");
+        committed.commitAndClose();
+
+        assertEquals(CLOSED_COMMITTED, committed.state());
+        assertFalse(finishedWithoutCommit(committed));
+
+        JDBC.change(SKIP_COMMIT_WITHOUT_WRITES, true);
+        try {
+            JdbcTransaction skipped = JDBC.createTransaction(TransactionOptions.DEFAULT.readOnly());
+            skipped.countQueryResults("SELECT * FROM options_table");
+            skipped.commitAndClose();
+
+            assertEquals(CLOSED_COMMITTED, skipped.state());
+            assertTrue(finishedWithoutCommit(skipped));
+        }
+        finally {
+            JDBC.change(SKIP_COMMIT_WITHOUT_WRITES, false);
+        }
+
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    private static void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void farDeadlinesAndTimeoutsDoNotOverflow() {
+        TransactionOptions far = TransactionOptions.DEFAULT
+                .withDeadline(Instant.MAX)
+                .withTimeout(Duration.ofSeconds(Long.MAX_VALUE));
+
+        int count = JDBC.doInTransaction(far, transaction -> {
+            return transaction.countQueryResults("SELECT * FROM options_table WHERE id = ?", 500);
+        });
+
+        assertEquals(0, count);
+
+        JdbcTransaction overdue = JDBC.createTransaction(TransactionOptions.DEFAULT.withDeadline(Instant.MIN));
+        assertThrows(TransactionDeadlineExceededException.class, () -> {
+            overdue.countQueryResults("SELECT * FROM options_table");
+        });
+
+        assertEquals(CLOSED_ROLLBACKED, overdue.state());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void transactionFailsFastAfterDeadline() {
+        TransactionOptions options = TransactionOptions.DEFAULT
+                .withDeadline(Instant.now().plusSeconds(60))
+                .withTimeout(Duration.ofMillis(200));
+
+        JdbcTransaction transaction = JDBC.createTransaction(options);
+        transaction.doUpdate(TABLE_INSERT, 400, "in_time");
+        sleepMillis(300);
+
+        assertThrows(TransactionDeadlineExceededException.class, () -> {
+            transaction.countQueryResults("SELECT * FROM options_table");
+        });
+
+        assertEquals(CLOSED_ROLLBACKED, transaction.state());
+        assertEquals(0, JDBC.countQueryResults("SELECT * FROM options_table WHERE id = ?", 400));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+}
@@ -0,0 +1,118 @@
+package integrations.transactions;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testing.embedded.base.h2.H2TestDataBase;
+import testing.embedded.base.h2.TestDataBase;
+
+import diarsid.jdbc.api.Jdbc;
+import diarsid.jdbc.api.Transactional;
+import diarsid.jdbc.api.exceptions.ForbiddenTransactionOperation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static diarsid.jdbc.api.Jdbc.WhenNoTransactionThen.IF_NO_TRANSACTION_OPEN_NEW;
+import static diarsid.jdbc.api.Jdbc.WhenNoTransactionThen.IF_NO_TRANSACTION_THROW;
+import static diarsid.jdbc.api.TransactionOptions.Isolation.SERIALIZABLE;
+import static diarsid.jdbc.api.Transactional.Propagation.JOIN_OR_OPEN_NEW;
+import static diarsid.jdbc.api.Transactional.Propagation.NO_TRANSACTION;
+import static diarsid.jdbc.api.Transactional.Propagation.OPEN_NEW;
+
+public class TransactionalAnnotationTest {
+
+    public interface Records {
+
+        @Transactional(propagation = NO_TRANSACTION)
+        boolean isBound();
+
+        @Transactional(propagation = JOIN_OR_OPEN_NEW, readOnly = true, isolation = SERIALIZABLE)
+        int isolationLevel();
+
+        @Transactional(propagation = OPEN_NEW)
+        void insertIndependently(int id);
+
+        void insert(int id);
+    }
+
+    private static class RecordsImpl implements Records {
+
+        @Override
+        public boolean isBound() {
+            return JDBC.threadBinding().isBound();
+        }
+
+        @Override
+        public int isolationLevel() {
+            AtomicInteger level = new AtomicInteger();
+            JDBC.threadBinding().currentTransaction().useJdbcDirectly(connection -> {
+                level.set(connection.getTransactionIsolation());
+            });
+            return level.get();
+        }
+
+        @Override
+        public void insertIndependently(int id) {
+            JDBC.threadBinding().currentTransaction().doUpdate("INSERT INTO annotated_table (id) VALUES (?)", id);
+        }
+
+        @Override
+        public void insert(int id) {
+            JDBC.threadBinding().currentTransaction().doUpdate("INSERT INTO annotated_table (id) VALUES (?)", id);
+        }
+    }
+
+    private static TestDataBase TEST_BASE;
+    private static Jdbc JDBC;
+
+    @BeforeAll
+    public static void setUpClass() {
+        TEST_BASE = new H2TestDataBase("transactional.annotation.test");
+        TEST_BASE.setupRequiredTable(
+                "CREATE TABLE annotated_table (" +
+                "id     INTEGER         NOT NULL PRIMARY KEY)");
+        JDBC = Jdbc.init(new SqlConnectionsSourceTestBase(TEST_BASE));
+    }
+
+    private static void failOuterTransaction() {
+        throw new IllegalStateException();
+    }
+
+    @Test
+    public void methodsAreConfiguredByAnnotations() {
+        Records records = JDBC.createTransactionalProxyFor(Records.class, new RecordsImpl(), IF_NO_TRANSACTION_THROW);
+
+        assertFalse(records.isBound());
+        assertEquals(Connection.TRANSACTION_SERIALIZABLE, records.isolationLevel());
+        assertThrows(ForbiddenTransactionOperation.class, () -> records.insert(1));
+
+        assertThrows(IllegalStateException.class, () -> {
+            JDBC.doInTransaction(transaction -> {
+                records.insert(1);
+                records.insertIndependently(2);
+                assertTrue(JDBC.threadBinding().currentTransaction() == transaction);
+                failOuterTransaction();
+            });
+        });
+
+        assertEquals(1, JDBC.countQueryResults("SELECT * FROM annotated_table WHERE id < ?", 10));
+        assertEquals(1, JDBC.countQueryResults("SELECT * FROM annotated_table WHERE id = ?", 2));
+        assertFalse(JDBC.threadBinding().isBound());
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+
+    @Test
+    public void proxyWhenNoTransactionThenIsRespected() {
+        Records records = JDBC.createTransactionalProxyFor(Records.class, new RecordsImpl(), IF_NO_TRANSACTION_OPEN_NEW);
+
+        records.insert(10);
+
+        assertEquals(1, JDBC.countQueryResults("SELECT * FROM annotated_table WHERE id = ?", 10));
+        assertTrue(TEST_BASE.ifAllConnectionsReleased());
+    }
+}